@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Benchmarks the helpers of {@link ArquillianPrimeFaces} opening the dialog of the snapshot of
+ * <code>statefulWithDialog.xhtml</code>.
+ *
+ * @author Bauke Scholtz
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DialogBenchmark {
+
+	@State(Scope.Thread)
+	public static class Page extends Fixture {
+
+		WebElement openDialogButton;
+		WebElement openDialogCommandButton;
+
+		@Override
+		protected String getPage() {
+			return "statefulWithDialog";
+		}
+
+		@Override
+		protected void opened() {
+			openDialogButton = find("openDialogButton");
+			openDialogCommandButton = find("openDialogForm:openDialogCommandButton");
+		}
+	}
+
+	@Benchmark
+	public void clickButton(Page page) {
+		ArquillianPrimeFaces.clickButton(page.openDialogButton);
+	}
+
+	@Benchmark
+	public void clickCommandButton(Page page) {
+		ArquillianPrimeFaces.clickCommandButton(page.openDialogCommandButton);
+	}
+
+}
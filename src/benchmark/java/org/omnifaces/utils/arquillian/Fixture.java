@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.singletonList;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.jboss.arquillian.drone.api.annotation.Default;
+import org.jboss.arquillian.graphene.DefaultGrapheneRuntime;
+import org.jboss.arquillian.graphene.GrapheneRuntime;
+import org.jboss.arquillian.graphene.context.GrapheneContext;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+
+/**
+ * Base of the JMH states of the benchmarks. It serves the page snapshot via {@link FixtureServer}, opens it in HtmlUnit
+ * once per iteration and records the helpers via {@link Instrumentation} during the whole trial, so that the round trips
+ * per helper end up in <code>target/benchmark</code> next to the latency numbers of JMH.
+ *
+ * @author Bauke Scholtz
+ */
+public abstract class Fixture {
+
+	private static final String[] VALUES = { "VALUE1", "VALUE2", "VALUE3", "VALUE4", "VALUE5" };
+	private static final String[] LABELS = { "Label 1", "Label 2", "Label 3", "Label 4", "Label 5" };
+
+	private FixtureServer server;
+	private WebDriver driver;
+	private WebDriver browser;
+	private int counter;
+
+	/**
+	 * Returns the name of the page snapshot to open, without extension.
+	 */
+	protected abstract String getPage();
+
+	@Setup(Level.Trial)
+	public void start(BenchmarkParams params) {
+		GrapheneRuntime.pushInstance(new DefaultGrapheneRuntime()); // Normally done by Arquillian before the suite.
+		server = new FixtureServer();
+		driver = new HtmlUnitDriver(BrowserVersion.BEST_SUPPORTED, true);
+		ArquillianPrimeFaces.configureTimeouts(driver, Duration.ofSeconds(10));
+		browser = GrapheneContext.getContextFor(Default.class).getWebDriver();
+		Instrumentation.start(params.getBenchmark() + "-" + getPage());
+	}
+
+	@Setup(Level.Iteration)
+	public void open() {
+		browser.get(server.getBaseURL() + getPage() + ".xhtml");
+		ready();
+
+		if (getPage().endsWith("WithDialog")) {
+			ArquillianPrimeFaces.clickButton(find("openDialogButton"));
+		}
+
+		opened();
+	}
+
+	/**
+	 * Wait until the widgets which are created on document ready are created, and then turn off the jQuery effects, because
+	 * HtmlUnit may stall an animation halfway, which blocks the next animation of the same overlay panel.
+	 */
+	private void ready() {
+		((JavascriptExecutor) browser).executeAsyncScript("var done = arguments[0]; $(function() { $.fx.off = true; done(); });");
+	}
+
+	/**
+	 * Invoked after the page is opened. JMH doesn't guarantee the order of setup methods of the same level, so subclasses
+	 * should locate their per iteration elements here instead of in their own setup method.
+	 */
+	protected void opened() {
+		// NOOP.
+	}
+
+	@TearDown(Level.Trial)
+	public void stop() {
+		Instrumentation.Test test = Instrumentation.stop();
+		InstrumentationRule.writeReport(Paths.get("target", "benchmark"), test.getName(), singletonList(test));
+		driver.quit();
+		server.close();
+		GrapheneRuntime.popInstance();
+	}
+
+	/**
+	 * Returns the Graphene proxy of the element with the given client ID.
+	 */
+	WebElement find(String clientId) {
+		return browser.findElement(By.id(clientId));
+	}
+
+	/**
+	 * Cycle to the next select item, so that every invocation actually changes the selection.
+	 */
+	void next() {
+		counter = (counter + 1) % VALUES.length;
+	}
+
+	String getValue() {
+		return VALUES[counter];
+	}
+
+	String getLabel() {
+		return LABELS[counter];
+	}
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.net.HttpURLConnection.HTTP_NOT_FOUND;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process HTTP server serving static snapshots of the PrimeFaces markup of the IT pages, so that the benchmarks can run
+ * HtmlUnit against them without a container. The snapshots are in the <code>benchmark</code> folder next to this class,
+ * each page includes <code>form.html</code> in place of <code>{form}</code>, like the IT pages include
+ * <code>form.xhtml</code>. JSF resources are served from <code>META-INF/resources</code> in the classpath, i.e. from the
+ * PrimeFaces JAR. Ajax requests are answered with a canned partial response: the auto complete query gets all items and
+ * any other request gets an update of the form it submitted. Non-ajax requests get the page again.
+ *
+ * @author Bauke Scholtz
+ */
+final class FixtureServer implements AutoCloseable {
+
+	private static final String RESOURCE_PATH = "/javax.faces.resource/";
+	private static final String SNAPSHOT_PATH = FixtureServer.class.getPackage().getName().replace('.', '/') + "/benchmark/";
+	private static final String PAGE_EXTENSION = ".xhtml";
+	private static final String FORM_PLACEHOLDER = "{form}";
+	private static final String ITEM = "<li class=\"ui-autocomplete-item ui-autocomplete-list-item ui-corner-all\" data-item-value=\"%1$s\" data-item-label=\"%1$s\" role=\"option\">%1$s</li>";
+	private static final String[] ITEMS = { "", "Label 1", "Label 2", "Label 3", "Label 4", "Label 5" };
+
+	private final HttpServer server;
+	private final Map<String, byte[]> resources = new ConcurrentHashMap<>();
+
+	/**
+	 * Start the server on a free port of the loopback address.
+	 */
+	FixtureServer() {
+		try {
+			server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		server.createContext("/", this::handle);
+		server.start();
+	}
+
+	/**
+	 * Returns the base URL of the server, ending with a slash.
+	 */
+	String getBaseURL() {
+		return "http://localhost:" + server.getAddress().getPort() + "/";
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+
+	// Handlers ---------------------------------------------------------------------------------------------------------------------------
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath();
+
+			if (path.startsWith(RESOURCE_PATH)) {
+				handleResource(exchange, path.substring(RESOURCE_PATH.length()));
+			}
+			else if (path.endsWith(PAGE_EXTENSION)) {
+				handlePage(exchange, path.substring(1, path.length() - PAGE_EXTENSION.length()));
+			}
+			else {
+				send(exchange, HTTP_NOT_FOUND, "text/plain", new byte[0]);
+			}
+		}
+		finally {
+			exchange.close();
+		}
+	}
+
+	private void handleResource(HttpExchange exchange, String name) throws IOException {
+		Map<String, String> query = parse(exchange.getRequestURI().getRawQuery());
+		String resourceName = name.substring(0, name.length() - PAGE_EXTENSION.length());
+		byte[] resource = getResource("META-INF/resources/" + query.get("ln") + "/" + resourceName);
+
+		if (resource == null) {
+			send(exchange, HTTP_NOT_FOUND, "text/plain", new byte[0]);
+		}
+		else {
+			send(exchange, HTTP_OK, resourceName.endsWith(".js") ? "text/javascript" : resourceName.endsWith(".css") ? "text/css" : "image/png", resource);
+		}
+	}
+
+	private void handlePage(HttpExchange exchange, String page) throws IOException {
+		byte[] snapshot = getResource(SNAPSHOT_PATH + page + ".html");
+
+		if (snapshot == null) {
+			send(exchange, HTTP_NOT_FOUND, "text/plain", new byte[0]);
+			return;
+		}
+
+		String html = new String(snapshot, UTF_8).replace(FORM_PLACEHOLDER, new String(getResource(SNAPSHOT_PATH + "form.html"), UTF_8));
+
+		if ("POST".equals(exchange.getRequestMethod())) {
+			Map<String, String> request = parse(new String(readAllBytes(exchange.getRequestBody()), UTF_8));
+
+			if ("true".equals(request.get("javax.faces.partial.ajax"))) {
+				send(exchange, HTTP_OK, "text/xml", getPartialResponse(request, html).getBytes(UTF_8));
+				return;
+			}
+		}
+
+		send(exchange, HTTP_OK, "text/html", html.getBytes(UTF_8));
+	}
+
+	private String getPartialResponse(Map<String, String> request, String html) {
+		String source = request.get("javax.faces.source");
+		StringBuilder response = new StringBuilder("<?xml version='1.0' encoding='UTF-8'?><partial-response id=\"j_id1\"><changes>");
+
+		if (source.endsWith("autoComplete")) {
+			StringBuilder items = new StringBuilder("<ul class=\"ui-autocomplete-items ui-autocomplete-list ui-widget-content ui-widget ui-corner-all ui-helper-reset\" role=\"listbox\">");
+
+			for (String item : ITEMS) {
+				items.append(String.format(ITEM, item));
+			}
+
+			response.append("<update id=\"").append(source).append("\"><![CDATA[").append(items).append("</ul>]]></update>");
+		}
+		else if (source.startsWith("form:")) {
+			String form = html.substring(html.indexOf("<form id=\"form\""), html.indexOf("</form>", html.indexOf("<form id=\"form\"")) + "</form>".length());
+			response.append("<update id=\"form\"><![CDATA[").append(form).append("]]></update>");
+		}
+
+		return response.append("</changes></partial-response>").toString();
+	}
+
+
+	// Helpers ----------------------------------------------------------------------------------------------------------------------------
+
+	private byte[] getResource(String name) {
+		return resources.computeIfAbsent(name, k -> {
+			try (InputStream input = FixtureServer.class.getClassLoader().getResourceAsStream(name)) {
+				return input == null ? null : readAllBytes(input);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	private static Map<String, String> parse(String query) throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+
+		if (query != null) {
+			for (String parameter : query.split("&")) {
+				String[] pair = parameter.split("=", 2);
+				parameters.put(URLDecoder.decode(pair[0], UTF_8.name()), pair.length > 1 ? URLDecoder.decode(pair[1], UTF_8.name()) : "");
+			}
+		}
+
+		return parameters;
+	}
+
+	private static byte[] readAllBytes(InputStream input) throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+
+		for (int length; (length = input.read(buffer)) != -1;) {
+			output.write(buffer, 0, length);
+		}
+
+		return output.toByteArray();
+	}
+
+	private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", contentType + (contentType.startsWith("image") ? "" : ";charset=UTF-8"));
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Benchmarks the form helpers of {@link ArquillianPrimeFaces} against the snapshots of <code>stateful.xhtml</code> and
+ * <code>statefulWithDialog.xhtml</code>, which both include <code>form.xhtml</code>.
+ *
+ * @author Bauke Scholtz
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormBenchmark {
+
+	@State(Scope.Thread)
+	public static class Page extends Fixture {
+
+		@Param({ "stateful", "statefulWithDialog" })
+		public String page;
+
+		WebElement form;
+		WebElement inputText;
+		WebElement inputNumber;
+		WebElement spinner;
+		WebElement slider;
+		WebElement autoComplete;
+		WebElement selectOneMenu;
+		WebElement selectOneRadio;
+		WebElement selectOneButton;
+		WebElement selectBooleanCheckbox;
+		WebElement commandButton;
+
+		@Override
+		protected String getPage() {
+			return page;
+		}
+
+		@Setup(Level.Invocation)
+		public void locate() { // The form may have been replaced by an ajax update during the previous invocation.
+			next();
+			form = find("form");
+			inputText = find("form:inputText");
+			inputNumber = find("form:inputNumber");
+			spinner = find("form:spinner");
+			slider = find("form:slider");
+			autoComplete = find("form:autoComplete");
+			selectOneMenu = find("form:selectOneMenu");
+			selectOneRadio = find("form:selectOneRadio");
+			selectOneButton = find("form:selectOneButton");
+			selectBooleanCheckbox = find("form:selectBooleanCheckbox");
+			commandButton = find("form:commandButton");
+		}
+	}
+
+
+	// Forms ------------------------------------------------------------------------------------------------------------------------------
+
+	@Benchmark
+	public WebElement getForm(Page page) {
+		return ArquillianPrimeFaces.getForm(page.inputText);
+	}
+
+	@Benchmark
+	public String getViewState(Page page) {
+		return ArquillianPrimeFaces.getViewState(page.inputText);
+	}
+
+	@Benchmark
+	public void assertStateful(Page page) {
+		ArquillianPrimeFaces.assertStateful(page.form);
+	}
+
+	@Benchmark
+	public PrimeFacesEnvironment getEnvironment(Page page) {
+		return ArquillianPrimeFaces.getEnvironment();
+	}
+
+	@Benchmark
+	public void fill(Page page) {
+		ArquillianPrimeFaces.fill(page.form)
+			.inputText(page.inputText, page.getLabel())
+			.inputNumber(page.inputNumber, 42)
+			.spinner(page.spinner, 42)
+			.slider(page.slider, 42)
+			.selectOneMenu(page.selectOneMenu, page.getValue())
+			.selectOneRadio(page.selectOneRadio, page.getValue())
+			.selectOneButton(page.selectOneButton, page.getValue())
+			.selectBooleanCheckbox(page.selectBooleanCheckbox, true)
+			.apply();
+	}
+
+
+	// Inputs -----------------------------------------------------------------------------------------------------------------------------
+
+	@Benchmark
+	public boolean isValid(Page page) {
+		return ArquillianPrimeFaces.isValid(page.inputNumber);
+	}
+
+	@Benchmark
+	public Map<String, Boolean> getValidityMap(Page page) {
+		return ArquillianPrimeFaces.getValidityMap(page.form);
+	}
+
+	@Benchmark
+	public void setInputTextValue(Page page) {
+		ArquillianPrimeFaces.setInputTextValue(page.inputText, page.getLabel());
+	}
+
+	@Benchmark
+	public void setInputNumberValue(Page page) {
+		ArquillianPrimeFaces.setInputNumberValue(page.inputNumber, 42);
+	}
+
+	@Benchmark
+	public void setSpinnerValue(Page page) {
+		ArquillianPrimeFaces.setSpinnerValue(page.spinner, 42);
+	}
+
+	@Benchmark
+	public void setSliderValue(Page page) {
+		ArquillianPrimeFaces.setSliderValue(page.slider, 42);
+	}
+
+	@Benchmark
+	public String setAutoCompleteValue(Page page) {
+		return ArquillianPrimeFaces.setAutoCompleteValue(page.autoComplete, "q", page.getLabel()); // A single key, HtmlUnit types slow enough to fire a query per key otherwise.
+	}
+
+	@Benchmark
+	public String setSelectOneMenuValue(Page page) {
+		return ArquillianPrimeFaces.setSelectOneMenuValue(page.selectOneMenu, page.getValue());
+	}
+
+	@Benchmark
+	public String setSelectOneMenuValueInWidgetMode(Page page) {
+		ArquillianPrimeFaces.configureWidgetMode(true);
+
+		try {
+			return ArquillianPrimeFaces.setSelectOneMenuValue(page.selectOneMenu, page.getValue());
+		}
+		finally {
+			ArquillianPrimeFaces.configureWidgetMode(false);
+		}
+	}
+
+	@Benchmark
+	public String setSelectOneRadioValue(Page page) {
+		return ArquillianPrimeFaces.setSelectOneRadioValue(page.selectOneRadio, page.getValue());
+	}
+
+	@Benchmark
+	public String setSelectOneButtonValue(Page page) {
+		return ArquillianPrimeFaces.setSelectOneButtonValue(page.selectOneButton, page.getValue());
+	}
+
+	@Benchmark
+	public void setSelectBooleanCheckboxChecked(Page page) {
+		ArquillianPrimeFaces.setSelectBooleanCheckboxChecked(page.selectBooleanCheckbox, page.getValue().endsWith("1"));
+	}
+
+
+	// Ajax -------------------------------------------------------------------------------------------------------------------------------
+
+	@Benchmark
+	public void clickCommandButton(Page page) {
+		ArquillianPrimeFaces.clickCommandButton(page.commandButton);
+	}
+
+	@Benchmark
+	public void waitForUpdate(Page page) {
+		ArquillianPrimeFaces.waitForUpdate(page.commandButton::click, page.form);
+	}
+
+}
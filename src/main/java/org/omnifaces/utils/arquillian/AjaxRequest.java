@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The payload sizes and timings of an ajax request as captured in the page, see
+ * {@link ArquillianPrimeFaces#getAjaxRequests()}.
+ *
+ * @author Bauke Scholtz
+ */
+public final class AjaxRequest {
+
+	private final int requestBytes;
+	private final int responseBytes;
+	private final List<String> updatedIds;
+	private final Duration roundTrip;
+	private final Duration duration;
+
+	@SuppressWarnings("unchecked")
+	AjaxRequest(Map<String, Object> request) {
+		requestBytes = ((Number) request.get("requestBytes")).intValue();
+		responseBytes = ((Number) request.get("responseBytes")).intValue();
+		List<String> updatedIds = new ArrayList<>();
+
+		for (Object updatedId : (List<Object>) request.get("updates")) {
+			updatedIds.add(Objects.toString(updatedId, null)); // May be a non-String CharSequence in HtmlUnit.
+		}
+
+		this.updatedIds = unmodifiableList(updatedIds);
+		roundTrip = toDuration((Number) request.get("roundTripMillis"));
+		duration = toDuration((Number) request.get("totalMillis"));
+	}
+
+	/**
+	 * Returns the size in bytes of the request body, which includes the view state.
+	 * @return The size in bytes of the request body.
+	 */
+	public int getRequestBytes() {
+		return requestBytes;
+	}
+
+	/**
+	 * Returns the size in bytes of the response body, or 0 when it hasn't completed yet.
+	 * @return The size in bytes of the response body.
+	 */
+	public int getResponseBytes() {
+		return responseBytes;
+	}
+
+	/**
+	 * Returns the client IDs of the <code>&lt;update&gt;</code> elements of the JSF partial response, excluding the view
+	 * state and client window updates which come along with every partial response.
+	 * @return The client IDs of the updated components.
+	 */
+	public List<String> getUpdatedIds() {
+		return updatedIds;
+	}
+
+	/**
+	 * Returns the amount of updated components, see {@link #getUpdatedIds()}.
+	 * @return The amount of updated components.
+	 */
+	public int getUpdateCount() {
+		return updatedIds.size();
+	}
+
+	/**
+	 * Returns the time from sending the request until the response has arrived, or <code>null</code> when it hasn't
+	 * completed yet. This is the time spent on the network and on the server.
+	 * @return The round trip time.
+	 */
+	public Duration getRoundTrip() {
+		return roundTrip;
+	}
+
+	/**
+	 * Returns the time from sending the request until PrimeFaces has updated the DOM and invoked the oncomplete handlers,
+	 * or <code>null</code> when it hasn't completed yet.
+	 * @return The total time of the request.
+	 */
+	public Duration getDuration() {
+		return duration;
+	}
+
+	/**
+	 * Returns whether the request has completed.
+	 * @return Whether the request has completed.
+	 */
+	public boolean isCompleted() {
+		return duration != null;
+	}
+
+	@Override
+	public String toString() {
+		return "AjaxRequest[requestBytes=" + requestBytes + ", responseBytes=" + responseBytes + ", updatedIds=" + updatedIds
+			+ ", roundTrip=" + roundTrip + ", duration=" + duration + "]";
+	}
+
+	private static Duration toDuration(Number millis) {
+		return millis.doubleValue() < 0 ? null : Duration.ofNanos(Math.round(millis.doubleValue() * 1_000_000));
+	}
+
+}
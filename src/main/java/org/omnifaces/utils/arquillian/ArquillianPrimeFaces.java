@@ -12,33 +12,67 @@
  */
 package org.omnifaces.utils.arquillian;
 
-import static org.jboss.arquillian.graphene.Graphene.guardAjax;
+import static java.lang.Boolean.TRUE;
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.synchronizedMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.joining;
 import static org.jboss.arquillian.graphene.Graphene.guardHttp;
 import static org.jboss.arquillian.graphene.Graphene.waitForHttp;
 import static org.jboss.arquillian.graphene.Graphene.waitGui;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import static org.openqa.selenium.support.ui.ExpectedConditions.attributeContains;
+import static org.omnifaces.utils.arquillian.Instrumentation.countCommand;
+import static org.omnifaces.utils.arquillian.Instrumentation.measure;
+import static org.omnifaces.utils.arquillian.Instrumentation.unmeasured;
+import static org.omnifaces.utils.arquillian.Instrumentation.waiting;
 import static org.openqa.selenium.support.ui.ExpectedConditions.elementToBeClickable;
-import static org.openqa.selenium.support.ui.ExpectedConditions.or;
-import static org.openqa.selenium.support.ui.ExpectedConditions.visibilityOf;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jboss.arquillian.drone.api.annotation.Default;
 import org.jboss.arquillian.graphene.context.GrapheneContext;
 import org.jboss.arquillian.graphene.proxy.GrapheneProxyInstance;
 import org.jboss.arquillian.graphene.spi.configuration.GrapheneConfiguration;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.openqa.selenium.By;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
+import org.openqa.selenium.htmlunit.HtmlUnitDriver;
+import org.openqa.selenium.internal.WrapsDriver;
+
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebClient;
 
 /**
  *
@@ -46,6 +80,26 @@ import org.openqa.selenium.WebElement;
  */
 public final class ArquillianPrimeFaces {
 
+	private static volatile boolean widgetMode;
+	private static volatile boolean fastMode;
+
+	private static final Duration SCRIPT_TIMEOUT_MARGIN = Duration.ofSeconds(1);
+	private static final Map<WebDriver, Duration> TIMEOUTS = synchronizedMap(new WeakHashMap<>());
+	private static final Map<WebDriver, Boolean> WIDGET_MODES = synchronizedMap(new WeakHashMap<>());
+	private static final Map<WebDriver, Boolean> FAST_MODES = synchronizedMap(new WeakHashMap<>());
+	private static final ThreadLocal<WebDriver> BROWSER = new ThreadLocal<>();
+	private static final Map<WebDriver, Number> LAST_AJAX_SENT = synchronizedMap(new WeakHashMap<>());
+	private static final List<String> NAVIGATION_METRICS = asList("ttfbMillis", "domContentLoadedMillis", "loadMillis", "resources", "resourceBytes");
+
+	private static final String PAGE_SCRIPT = loadPageScript();
+	private static final String PAGE_SCRIPT_ABSENT = "ArquillianPrimeFaces:absent";
+	private static final String PAGE_SCRIPT_INVOKER = "var page = window.ArquillianPrimeFaces;"
+		+ "return page ? page[arguments[0]].apply(page, Array.prototype.slice.call(arguments, 1)) : '" + PAGE_SCRIPT_ABSENT + "';";
+	private static final String FAST_MODE_ENABLER = "if (window.ArquillianPrimeFaces) window.ArquillianPrimeFaces.enableFastMode();";
+	private static final String ASYNC_PAGE_SCRIPT_INVOKER = "var page = window.ArquillianPrimeFaces;"
+		+ "if (page) page[arguments[0]].apply(page, Array.prototype.slice.call(arguments, 1));"
+		+ "else arguments[arguments.length - 1]('" + PAGE_SCRIPT_ABSENT + "');";
+
 	private ArquillianPrimeFaces() {
 		throw new AssertionError("This is a utility class.");
 	}
@@ -56,16 +110,21 @@ public final class ArquillianPrimeFaces {
 	/**
 	 * Allows more flexible programmatic configuration as to wait timeouts.
 	 * Graphene#guardXxx() namely doesn't support specifying custom timeouts and defaults to 2~3 seconds which may be too low sometimes.
+	 * Graphene only supports whole seconds, but {@link #waitForAjax(Runnable)} uses the timeout with millisecond precision.
 	 * Best place to run this is a {@link Before} annotated method.
+	 * <p>
+	 * This also binds the browser to the current thread. The helpers use the browser owning the passed element and fall
+	 * back to the browser bound to the current thread when there's no element to resolve it from, such as in
+	 * {@link #waitForAjax(Runnable)}. So when running tests in parallel, invoke this in each thread, or use a
+	 * {@link BrowserPool}.
 	 * @param browser The browser.
 	 * @param timeout The timeout.
 	 */
 	public static void configureTimeouts(WebDriver browser, Duration timeout) {
-		while (browser instanceof GrapheneProxyInstance) {
-			browser = ((GrapheneProxyInstance) browser).unwrap();
-		}
+		browser = unwrap(browser);
+		setTimeout(browser, timeout);
 
-		GrapheneContext.setContextFor(new GrapheneConfiguration() {
+		GrapheneContext context = GrapheneContext.setContextFor(new GrapheneConfiguration() {
 			@Override
 			public long getWaitAjaxInterval() {
 				return timeout.getSeconds();
@@ -83,6 +142,64 @@ public final class ArquillianPrimeFaces {
 				return timeout.getSeconds();
 			}
 		}, browser, Default.class);
+
+		BROWSER.set(context.getWebDriver());
+	}
+
+	/**
+	 * Enable or disable widget mode. It's by default disabled.
+	 * In widget mode, {@link #setSelectOneMenuValue(WebElement, Serializable)}, {@link #setSelectOneRadioValue(WebElement, Serializable)}
+	 * and {@link #setSelectOneButtonValue(WebElement, Serializable)} select the item via the PrimeFaces client side widget API
+	 * in a single script execution instead of opening the panel and clicking the item. Change behaviors are still fired and
+	 * guarded. When the widget or the item can't be resolved, they fall back to clicking the item.
+	 * <p>
+	 * This applies to all browsers in the JVM which have no widget mode of their own, see
+	 * {@link #configureWidgetMode(WebDriver, boolean)}. So set it only once, in a {@link BeforeClass} annotated method,
+	 * and never toggle it while tests may run in parallel.
+	 * @param enabled Whether widget mode is enabled.
+	 */
+	public static void configureWidgetMode(boolean enabled) {
+		widgetMode = enabled;
+	}
+
+	/**
+	 * Enable or disable widget mode for the given browser only, overriding {@link #configureWidgetMode(boolean)}. This is
+	 * safe to toggle in a test while other tests run in parallel with other browsers.
+	 * @param browser The browser.
+	 * @param enabled Whether widget mode is enabled.
+	 */
+	public static void configureWidgetMode(WebDriver browser, boolean enabled) {
+		WIDGET_MODES.put(unwrap(browser), enabled);
+	}
+
+	/**
+	 * Enable or disable fast mode. It's by default disabled.
+	 * In fast mode, all animations are turned off in every page the helpers work on: the jQuery and jQuery UI effects, the
+	 * effect durations of the PrimeFaces widgets, including those created by later ajax updates, and the CSS transitions
+	 * and animations. This happens right after the page is loaded when the page was loaded by a helper, such as
+	 * {@link #clickLink(WebElement)} or {@link #clickCommandButtonWithRedirect(WebElement)}, and otherwise, such as after
+	 * <code>WebDriver#get()</code>, upon the first helper invocation in the page. Panels and dialogs are then usable
+	 * immediately, so the helpers don't have to wait for e.g. the p:selectOneMenu panel to slide down, or the p:dialog to
+	 * fade in.
+	 * <p>
+	 * This applies to all browsers in the JVM which have no fast mode of their own, see
+	 * {@link #configureFastMode(WebDriver, boolean)}. So set it only once, in a {@link BeforeClass} annotated method,
+	 * and never toggle it while tests may run in parallel.
+	 * @param enabled Whether fast mode is enabled.
+	 */
+	public static void configureFastMode(boolean enabled) {
+		fastMode = enabled;
+	}
+
+	/**
+	 * Enable or disable fast mode for the given browser only, overriding {@link #configureFastMode(boolean)}. This is safe
+	 * to toggle in a test while other tests run in parallel with other browsers. Animations which are already turned off
+	 * in the current page stay off until the next page load.
+	 * @param browser The browser.
+	 * @param enabled Whether fast mode is enabled.
+	 */
+	public static void configureFastMode(WebDriver browser, boolean enabled) {
+		FAST_MODES.put(unwrap(browser), enabled);
 	}
 
 
@@ -93,12 +210,14 @@ public final class ArquillianPrimeFaces {
 	 * @param element The element to be checked.
 	 */
 	public static void assertPresent(WebElement element) {
-		try {
-			assertTrue(element.isDisplayed());
-		}
-		catch (NoSuchElementException e) {
-			fail(e.toString());
-		}
+		measure("assertPresent", () -> {
+			try {
+				assertTrue(element.isDisplayed());
+			}
+			catch (NoSuchElementException e) {
+				fail(e.toString());
+			}
+		}, element);
 	}
 
 	/**
@@ -106,12 +225,27 @@ public final class ArquillianPrimeFaces {
 	 * @param element The element to be checked.
 	 */
 	public static void assertAbsent(WebElement element) {
-		try {
-			assertFalse(element.isDisplayed());
-		}
-		catch (NoSuchElementException e) {
-			// Expected.
-		}
+		measure("assertAbsent", () -> {
+			try {
+				assertFalse(element.isDisplayed());
+			}
+			catch (NoSuchElementException e) {
+				// Expected.
+			}
+		}, element);
+	}
+
+
+	// Environment ------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the PrimeFaces environment of the current page: the naming container separator character, the PrimeFaces and
+	 * jQuery versions and the widgetVars of the PrimeFaces widgets. This is probed only once per page load and cached in the
+	 * page, so that the helpers of this class can read it without extra round trips.
+	 * @return The PrimeFaces environment of the current page.
+	 */
+	public static PrimeFacesEnvironment getEnvironment() {
+		return measure("getEnvironment", () -> new PrimeFacesEnvironment(executePageScript("getEnvironment")));
 	}
 
 
@@ -119,31 +253,81 @@ public final class ArquillianPrimeFaces {
 
 	/**
 	 * Returns the parent form element associated with given form-based element.
+	 * This is resolved by a single script execution regardless of the nesting depth of the element. The resolved naming
+	 * containers are cached in the page until the next full page navigation or until they're replaced by an ajax update.
 	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
 	 * @return The parent form element.
+	 * @throws NoSuchElementException When there is no parent form.
 	 */
 	public static WebElement getForm(WebElement element) {
-		if (element.getTagName().equals("form")) {
-			return element;
-		}
-		else {
-			return getForm(getNamingContainer(element));
-		}
+		return measure("getForm", () -> {
+			WebElement form = executePageScript("getForm", element);
+
+			if (form == null) {
+				throw new NoSuchElementException("Cannot locate parent form of " + element);
+			}
+
+			return form;
+		}, element);
 	}
 
-	private static WebElement getNamingContainer(WebElement element) {
-		String clientId = element.getAttribute("id");
-		WebElement document = element.findElement(By.xpath("/*"));
-		return document.findElement(By.id(clientId.substring(0, clientId.lastIndexOf(':')))); // TODO: get separator character from JS.
+	/**
+	 * Returns a builder to fill the inputs of the given form in as few browser round trips as possible.
+	 * The inputs are filled by a single script execution, which fires the events a user typing in or selecting and then
+	 * leaving the input would fire, so that e.g. a <code>p:ajax event="keyup"</code> or <code>event="blur"</code> still
+	 * fires. When an input fires an ajax request, it's waited for before the next inputs are filled by the next script
+	 * execution. Inputs which can't be filled by script, such as <code>p:autoComplete</code> or inputs with a key down
+	 * handler, are delegated to the single input helpers. The inputs are filled in the order they are added to the builder.
+	 * <pre>
+	 * ArquillianPrimeFaces.fill(form)
+	 *     .inputText(inputText, "new input text value")
+	 *     .inputNumber(inputNumber, 42)
+	 *     .selectOneMenu(selectOneMenu, "option value")
+	 *     .apply();
+	 * </pre>
+	 * @param form The form element containing the inputs.
+	 * @return A builder to fill the inputs of the given form.
+	 */
+	public static FormFiller fill(WebElement form) {
+		return new FormFiller(form);
+	}
+
+	/**
+	 * Fill the given fields of the given form by a single script execution, starting at the given offset, until a field
+	 * is encountered which can't be filled by script, or until a field has fired an ajax request, which is then waited for.
+	 * Returns the result of the fill() function of the page script: the index of the first field which wasn't filled and
+	 * whether an ajax request has been fired.
+	 */
+	@SuppressWarnings("unchecked")
+	static Map<String, Object> fill(WebElement form, List<List<Object>> fields, int offset) {
+		WebDriver browser = getBrowser(form);
+		Object[] filled = { null };
+
+		waitForAjaxIfFired(browser, () -> {
+			filled[0] = executePageScript(browser, "fill", form, fields, offset);
+			return TRUE.equals(((Map<String, Object>) filled[0]).get("fired"));
+		});
+
+		return (Map<String, Object>) filled[0];
 	}
 
 	/**
 	 * Returns the view state hidden input element associated with given form-based element.
+	 * This is obtained by a single script execution, see also {@link #getForm(WebElement)}.
 	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
 	 * @return The view state hidden input element associated with given form-based element.
+	 * @throws NoSuchElementException When there is no parent form or when it has no view state.
 	 */
 	public static String getViewState(WebElement element) {
-		return getForm(element).findElement(By.name("javax.faces.ViewState")).getAttribute("value");
+		return measure("getViewState", () -> {
+			String viewState = executePageScript("getViewState", element);
+
+			if (viewState == null) {
+				throw new NoSuchElementException("Cannot locate view state of parent form of " + element);
+			}
+
+			return viewState;
+		}, element);
 	}
 
 	/**
@@ -151,7 +335,7 @@ public final class ArquillianPrimeFaces {
 	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
 	 */
 	public static void assertStateless(WebElement element) {
-		assertEquals("stateless", getViewState(element));
+		measure("assertStateless", () -> assertEquals("stateless", getViewState(element)), element);
 	}
 
 	/**
@@ -159,7 +343,39 @@ public final class ArquillianPrimeFaces {
 	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
 	 */
 	public static void assertStateful(WebElement element) {
-		assertNotEquals("stateless", getViewState(element));
+		measure("assertStateful", () -> assertNotEquals("stateless", getViewState(element)), element);
+	}
+
+	/**
+	 * Returns the size in bytes of the view state of the parent form of the given form-based element, as it's submitted
+	 * with every postback. This is obtained by a single script execution, without transferring the view state itself.
+	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
+	 * @return The size in bytes of the view state of the parent form.
+	 * @throws NoSuchElementException When there is no parent form or when it has no view state.
+	 */
+	public static int getViewStateSize(WebElement element) {
+		return measure("getViewStateSize", () -> {
+			int size = ((Number) executePageScript("getViewStateSize", element)).intValue();
+
+			if (size < 0) {
+				throw new NoSuchElementException("Cannot locate view state of parent form of " + element);
+			}
+
+			return size;
+		}, element);
+	}
+
+	/**
+	 * Assert that the view state of the parent form of the given form-based element is smaller than the given amount of
+	 * bytes.
+	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
+	 * @param bytes The exclusive maximum size in bytes.
+	 */
+	public static void assertViewStateSmallerThan(WebElement element, int bytes) {
+		measure("assertViewStateSmallerThan", () -> {
+			int size = getViewStateSize(element);
+			assertTrue("View state is " + size + " bytes, expected smaller than " + bytes + " bytes.", size < bytes);
+		}, element);
 	}
 
 
@@ -171,15 +387,17 @@ public final class ArquillianPrimeFaces {
 	 * @return Whether given form-based element is valid.
 	 */
 	public static boolean isValid(WebElement element) {
-		if (element.getAttribute("class").contains("ui-state-error")) {
-			return false;
-		}
-		else if (element.getAttribute("class").contains("ui-state-default")) { // <p:inputXxx>
-			return true;
-		}
-		else {
-			return isValid(element.findElement(By.cssSelector(".ui-state-default"))); // <p:inputXxx> with special wrapping markup (e.g. inputNumber, spinner, etc)
-		}
+		return measure("isValid", () -> {
+			if (element.getAttribute("class").contains("ui-state-error")) {
+				return false;
+			}
+			else if (element.getAttribute("class").contains("ui-state-default")) { // <p:inputXxx>
+				return true;
+			}
+			else {
+				return isValid(element.findElement(By.cssSelector(".ui-state-default"))); // <p:inputXxx> with special wrapping markup (e.g. inputNumber, spinner, etc)
+			}
+		}, element);
 	}
 
 	/**
@@ -187,7 +405,7 @@ public final class ArquillianPrimeFaces {
 	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
 	 */
 	public static void assertValid(WebElement element) {
-		assertTrue("Must be valid: " + element, isValid(element));
+		measure("assertValid", () -> assertTrue("Must be valid: " + element, isValid(element)), element);
 	}
 
 	/**
@@ -195,7 +413,48 @@ public final class ArquillianPrimeFaces {
 	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
 	 */
 	public static void assertInvalid(WebElement element) {
-		assertFalse("Must be invalid: " + element, isValid(element));
+		measure("assertInvalid", () -> assertFalse("Must be invalid: " + element, isValid(element)), element);
+	}
+
+	/**
+	 * Returns a snapshot of the validity of all form-based elements in the given form, collected by a single script execution.
+	 * This is more efficient than invoking {@link #isValid(WebElement)} on every single element of a large form.
+	 * The snapshot can be checked with {@link #assertValid(Map, WebElement)} and {@link #assertInvalid(Map, WebElement)}.
+	 * @param form The form element.
+	 * @return The validity of all form-based elements in the given form, keyed by client ID.
+	 */
+	public static Map<String, Boolean> getValidityMap(WebElement form) {
+		return measure("getValidityMap", () -> {
+			Map<String, Boolean> validityMap = new LinkedHashMap<>();
+			Map<String, Object> result = executePageScript("getValidityMap", form);
+			result.forEach((clientId, valid) -> validityMap.put(clientId, (Boolean) valid));
+			return unmodifiableMap(validityMap);
+		}, form);
+	}
+
+	/**
+	 * Assert that the given form-based element is valid in the given validity snapshot.
+	 * @param validityMap The validity snapshot as obtained by {@link #getValidityMap(WebElement)}.
+	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
+	 */
+	public static void assertValid(Map<String, Boolean> validityMap, WebElement element) {
+		measure("assertValid", () -> assertTrue("Must be valid: " + element, isValid(validityMap, element)), element);
+	}
+
+	/**
+	 * Assert that the given form-based element is invalid in the given validity snapshot.
+	 * @param validityMap The validity snapshot as obtained by {@link #getValidityMap(WebElement)}.
+	 * @param element The form-based element, e.g. form/input/select/textarea/button, anything which is inside a form.
+	 */
+	public static void assertInvalid(Map<String, Boolean> validityMap, WebElement element) {
+		measure("assertInvalid", () -> assertFalse("Must be invalid: " + element, isValid(validityMap, element)), element);
+	}
+
+	private static boolean isValid(Map<String, Boolean> validityMap, WebElement element) {
+		String clientId = element.getAttribute("id");
+		Boolean valid = validityMap.get(clientId);
+		assertNotNull("Validity must be known: " + clientId, valid);
+		return valid;
 	}
 
 	/**
@@ -205,23 +464,33 @@ public final class ArquillianPrimeFaces {
 	 * @return The f:selectItem label associated with the selected value, may be useful for comparison/logging.
 	 */
 	public static String setSelectOneMenuValue(WebElement selectOneMenu, Serializable value) {
-		String clientId = selectOneMenu.getAttribute("id");
-		WebElement document = selectOneMenu.findElement(By.xpath("/*"));
-		WebElement input = document.findElement(By.id(clientId + "_input"));
-		String itemValue = value.toString();
-		String itemLabel = executeScript("return $(document.getElementById('" + input.getAttribute("id") + "')).find('option[value=\"" + itemValue + "\"]').text()"); // getText() doesn't work as option is hidden. It's needed because ui-selectonemenu-item doesn't have a data-value.
-		document.findElement(By.id(clientId + "_label")).click(); // Open panel.
-		WebElement panel = document.findElement(By.id(clientId + "_panel"));
-		WebElement selectItem = panel.findElement(By.cssSelector(".ui-selectonemenu-item[data-label='" + itemLabel + "']"));
+		return measure("setSelectOneMenuValue", () -> {
+			if (isWidgetMode(getBrowser(selectOneMenu))) {
+				String itemLabel = setSelectOneValueViaWidget(selectOneMenu, value);
 
-		if (input.getAttribute("onchange") != null) {
-			guardAjax(selectItem).click();
-		}
-		else {
-			selectItem.click();
-		}
+				if (itemLabel != null) {
+					return itemLabel;
+				}
+			}
+
+			String clientId = selectOneMenu.getAttribute("id");
+			WebElement document = selectOneMenu.findElement(By.xpath("/*"));
+			WebElement input = document.findElement(By.id(clientId + "_input"));
+			String itemValue = value.toString();
+			String itemLabel = executeScript(getBrowser(selectOneMenu), "return $(document.getElementById('" + input.getAttribute("id") + "')).find('option[value=\"" + itemValue + "\"]').text()"); // getText() doesn't work as option is hidden. It's needed because ui-selectonemenu-item doesn't have a data-value.
+			document.findElement(By.id(clientId + "_label")).click(); // Open panel.
+			WebElement panel = document.findElement(By.id(clientId + "_panel"));
+			WebElement selectItem = panel.findElement(By.cssSelector(".ui-selectonemenu-item[data-label='" + itemLabel + "']"));
 
-		return itemLabel;
+			if (input.getAttribute("onchange") != null) {
+				waitForAjax(getBrowser(selectOneMenu), selectItem::click);
+			}
+			else {
+				selectItem.click();
+			}
+
+			return itemLabel;
+		}, selectOneMenu);
 	}
 
 	/**
@@ -231,22 +500,32 @@ public final class ArquillianPrimeFaces {
 	 * @return The f:selectItem label associated with the selected value, may be useful for comparison/logging.
 	 */
 	public static String setSelectOneRadioValue(WebElement selectOneRadio, Serializable value) {
-		String itemValue = value.toString();
-		WebElement input = selectOneRadio.findElement(By.cssSelector("input[value='" + itemValue + "']"));
-		String itemLabel = selectOneRadio.findElement(By.cssSelector("label[for='" + input.getAttribute("id") + "']")).getText();
-		WebElement findElement = input.findElement(By.xpath("ancestor::div[contains(@class,'ui-radiobutton')]"));
-		WebElement selectItem = findElement.findElement(By.cssSelector(".ui-radiobutton-box"));
+		return measure("setSelectOneRadioValue", () -> {
+			if (isWidgetMode(getBrowser(selectOneRadio))) {
+				String itemLabel = setSelectOneValueViaWidget(selectOneRadio, value);
 
-		if (!selectItem.getAttribute("class").contains("ui-state-active")) {
-			if (input.getAttribute("onchange") != null) {
-				guardAjax(selectItem).click();
+				if (itemLabel != null) {
+					return itemLabel;
+				}
 			}
-			else {
-				selectItem.click();
+
+			String itemValue = value.toString();
+			WebElement input = selectOneRadio.findElement(By.cssSelector("input[value='" + itemValue + "']"));
+			String itemLabel = selectOneRadio.findElement(By.cssSelector("label[for='" + input.getAttribute("id") + "']")).getText();
+			WebElement findElement = input.findElement(By.xpath("ancestor::div[contains(@class,'ui-radiobutton')]"));
+			WebElement selectItem = findElement.findElement(By.cssSelector(".ui-radiobutton-box"));
+
+			if (!selectItem.getAttribute("class").contains("ui-state-active")) {
+				if (input.getAttribute("onchange") != null) {
+					waitForAjax(getBrowser(selectOneRadio), selectItem::click);
+				}
+				else {
+					selectItem.click();
+				}
 			}
-		}
 
-		return itemLabel;
+			return itemLabel;
+		}, selectOneRadio);
 	}
 
 	/**
@@ -256,16 +535,45 @@ public final class ArquillianPrimeFaces {
 	 * @return The f:selectItem label associated with the selected value, may be useful for comparison/logging.
 	 */
 	public static String setSelectOneButtonValue(WebElement selectOneButton, Serializable value) {
+		return measure("setSelectOneButtonValue", () -> {
+			if (isWidgetMode(getBrowser(selectOneButton))) {
+				String itemLabel = setSelectOneValueViaWidget(selectOneButton, value);
+
+				if (itemLabel != null) {
+					return itemLabel;
+				}
+			}
+
+			String itemValue = value.toString();
+			WebElement input = selectOneButton.findElement(By.cssSelector("input[value='" + itemValue + "']"));
+			WebElement selectItem = input.findElement(By.xpath("ancestor::div[contains(@class,'ui-state-default')]"));
+			String itemLabel = selectItem.findElement(By.cssSelector(".ui-button-text")).getText();
+
+			if (!selectItem.getAttribute("class").contains("ui-state-active")) {
+				selectItem.click();
+			}
+
+			return itemLabel;
+		}, selectOneButton);
+	}
+
+	/**
+	 * Select the given value via the PrimeFaces widget and return the item label, or null if the widget can't be resolved.
+	 * This takes one round trip, or two when a change behavior is to be fired, because the second one needs to be guarded.
+	 */
+	private static String setSelectOneValueViaWidget(WebElement selectOne, Serializable value) {
 		String itemValue = value.toString();
-		WebElement input = selectOneButton.findElement(By.cssSelector("input[value='" + itemValue + "']"));
-		WebElement selectItem = input.findElement(By.xpath("ancestor::div[contains(@class,'ui-state-default')]"));
-		String itemLabel = selectItem.findElement(By.cssSelector(".ui-button-text")).getText();
+		Map<String, Object> item = executePageScript("selectOneValue", selectOne, itemValue, false);
 
-		if (!selectItem.getAttribute("class").contains("ui-state-active")) {
-			selectItem.click();
+		if (item == null) {
+			return null;
+		}
+
+		if (!(Boolean) item.get("selected")) {
+			waitForAjax(getBrowser(selectOne), () -> executePageScript("selectOneValue", selectOne, itemValue, true));
 		}
 
-		return itemLabel;
+		return Objects.toString(item.get("label"), null); // May be a non-String CharSequence in HtmlUnit, e.g. when concatenated.
 	}
 
 	/**
@@ -274,8 +582,10 @@ public final class ArquillianPrimeFaces {
 	 * @param value The input value.
 	 */
 	public static void setInputTextValue(WebElement inputText, Serializable value) {
-		inputText.clear();
-		inputText.sendKeys(value.toString());
+		measure("setInputTextValue", () -> {
+			inputText.clear();
+			inputText.sendKeys(value.toString());
+		}, inputText);
 	}
 
 	/**
@@ -284,8 +594,10 @@ public final class ArquillianPrimeFaces {
 	 * @param value The input value.
 	 */
 	public static void setInputMaskValue(WebElement inputMask, Serializable value) {
-		String clientId = inputMask.getAttribute("id");
-		executeScript("document.getElementById('" + clientId + "').value='" + value + "'"); // Selenium 3.7.0 bugs here with timing errors on WebElement#sendKeys(), hence JavaScript. TODO: check if it works in a newer Selenium version.
+		measure("setInputMaskValue", () -> {
+			String clientId = inputMask.getAttribute("id");
+			executeScript(getBrowser(inputMask), "document.getElementById('" + clientId + "').value='" + value + "'"); // Selenium 3.7.0 bugs here with timing errors on WebElement#sendKeys(), hence JavaScript. TODO: check if it works in a newer Selenium version.
+		}, inputMask);
 	}
 
 	/**
@@ -294,9 +606,11 @@ public final class ArquillianPrimeFaces {
 	 * @param value The input value.
 	 */
 	public static void setInputNumberValue(WebElement inputNumber, Number value) {
-		String clientId = inputNumber.getAttribute("id");
-		WebElement input = inputNumber.findElement(By.id(clientId + "_input"));
-		setInputTextValue(input, String.valueOf(value));
+		measure("setInputNumberValue", () -> {
+			String clientId = inputNumber.getAttribute("id");
+			WebElement input = inputNumber.findElement(By.id(clientId + "_input"));
+			setInputTextValue(input, String.valueOf(value));
+		}, inputNumber);
 	}
 
 	/**
@@ -305,7 +619,7 @@ public final class ArquillianPrimeFaces {
 	 * @param value The input value.
 	 */
 	public static void setSpinnerValue(WebElement spinner, Number value) {
-		setInputNumberValue(spinner, value);
+		measure("setSpinnerValue", () -> setInputNumberValue(spinner, value), spinner);
 	}
 
 	/**
@@ -314,7 +628,7 @@ public final class ArquillianPrimeFaces {
 	 * @param value The input value.
 	 */
 	public static void setSliderValue(WebElement slider, Number value) {
-		setInputTextValue(slider, value);
+		measure("setSliderValue", () -> setInputTextValue(slider, value), slider);
 	}
 
 	/**
@@ -325,7 +639,7 @@ public final class ArquillianPrimeFaces {
 	 * @param query The query to run auto complete for.
 	 */
 	public static void setAutoCompleteQuery(WebElement autoComplete, String query) {
-		setAutoCompleteQuery(autoComplete, query, true);
+		measure("setAutoCompleteQuery", () -> setAutoCompleteQuery(autoComplete, query, true), autoComplete);
 	}
 
 	/**
@@ -336,15 +650,15 @@ public final class ArquillianPrimeFaces {
 	 * @param query The query to run auto complete for.
 	 */
 	public static void setAutoCompleteQuery(WebElement autoComplete, String query, boolean resultsExpected) {
-		String clientId = autoComplete.getAttribute("id");
-		WebElement input = autoComplete.findElement(By.id(clientId + "_input"));
-		setInputTextValue(input, query);
+		measure("setAutoCompleteQuery", () -> {
+			String clientId = autoComplete.getAttribute("id");
+			WebElement input = autoComplete.findElement(By.id(clientId + "_input"));
+			setInputTextValue(input, query);
 
-		if (resultsExpected) {
-			WebElement document = autoComplete.findElement(By.xpath("/*"));
-			WebElement panel = document.findElement(By.id(clientId + "_panel"));
-			waitGui().until(or(visibilityOf(panel), attributeContains(input, "class", "ui-state-error")));
-		}
+			if (resultsExpected) {
+				waitForMutation(getBrowser(autoComplete), -1, asList(asList(clientId + "_panel", "visible"), asList(clientId + "_input", "invalid")));
+			}
+		}, autoComplete);
 	}
 
 	/**
@@ -356,14 +670,16 @@ public final class ArquillianPrimeFaces {
 	 * @return The label associated with the selected value, may be useful for comparison/logging.
 	 */
 	public static String setAutoCompleteValue(WebElement autoComplete, Serializable value) {
-		String clientId = autoComplete.getAttribute("id");
-		WebElement document = autoComplete.findElement(By.xpath("/*"));
-		WebElement panel = document.findElement(By.id(clientId + "_panel"));
-		waitGui().until(visibilityOf(panel));
-		WebElement selectItem = panel.findElement(By.cssSelector("[data-item-value='" + value + "']"));
-		String itemLabel = selectItem.getAttribute("data-item-label");
-		selectItem.click();
-		return itemLabel;
+		return measure("setAutoCompleteValue", () -> {
+			String clientId = autoComplete.getAttribute("id");
+			waitForMutation(getBrowser(autoComplete), -1, asList(asList(clientId + "_panel", "visible")));
+			WebElement document = autoComplete.findElement(By.xpath("/*"));
+			WebElement panel = document.findElement(By.id(clientId + "_panel"));
+			WebElement selectItem = panel.findElement(By.cssSelector("[data-item-value='" + value + "']"));
+			String itemLabel = selectItem.getAttribute("data-item-label");
+			selectItem.click();
+			return itemLabel;
+		}, autoComplete);
 	}
 
 	/**
@@ -374,8 +690,10 @@ public final class ArquillianPrimeFaces {
 	 * @return The label associated with the selected value, may be useful for comparison/logging.
 	 */
 	public static String setAutoCompleteValue(WebElement autoComplete, String query, Serializable value) {
-		setAutoCompleteQuery(autoComplete, query);
-		return setAutoCompleteValue(autoComplete, value);
+		return measure("setAutoCompleteValue", () -> {
+			setAutoCompleteQuery(autoComplete, query);
+			return setAutoCompleteValue(autoComplete, value);
+		}, autoComplete);
 	}
 
 	/**
@@ -384,15 +702,176 @@ public final class ArquillianPrimeFaces {
 	 * @param checked The checked state.
 	 */
 	public static void setSelectBooleanCheckboxChecked(WebElement selectBooleanCheckbox, boolean checked) {
-		WebElement box = selectBooleanCheckbox.findElement(By.cssSelector(".ui-chkbox-box"));
+		measure("setSelectBooleanCheckboxChecked", () -> {
+			WebElement box = selectBooleanCheckbox.findElement(By.cssSelector(".ui-chkbox-box"));
 
-		if (box.getAttribute("class").contains("ui-state-active")) {
-			if (!checked) {
+			if (box.getAttribute("class").contains("ui-state-active")) {
+				if (!checked) {
+					box.click();
+				}
+			}
+			else if (checked) {
 				box.click();
 			}
+		}, selectBooleanCheckbox);
+	}
+
+
+	// Ajax -------------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Run the given action and wait until the ajax requests fired by it have completed, including the DOM updates and the
+	 * oncomplete handlers. Unlike Graphene#guardAjax() this doesn't poll, but listens on the jQuery ajax requests, which
+	 * includes the PrimeFaces ajax queue, so it returns as soon as the last request has completed.
+	 * The timeout is the one configured via {@link #configureTimeouts(WebDriver, Duration)}, with millisecond precision.
+	 * This waits in the browser bound to the current thread, see {@link #configureTimeouts(WebDriver, Duration)}.
+	 * @param action The action which is expected to fire at least one ajax request, e.g. clicking a command button.
+	 * @throws TimeoutException When no ajax request has been fired or completed within the timeout.
+	 * @throws ServerErrorException When an ajax request has failed with a server error.
+	 */
+	public static void waitForAjax(Runnable action) {
+		measure("waitForAjax", () -> waitForAjax(getBrowser(), action));
+	}
+
+	private static void waitForAjax(WebDriver browser, Runnable action) {
+		waitForAjaxIfFired(browser, () -> {
+			action.run();
+			return true;
+		});
+	}
+
+	/**
+	 * Like {@link #waitForAjax(WebDriver, Runnable)}, but the action returns whether it has fired an ajax request at all,
+	 * so that there's nothing to wait for when it hasn't.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void waitForAjaxIfFired(WebDriver browser, BooleanSupplier action) {
+		Duration timeout = getTimeout(browser);
+		Number sent = executePageScript(browser, "getAjaxSent");
+
+		if (!action.getAsBoolean()) {
+			return;
+		}
+
+		LAST_AJAX_SENT.put(unwrap(browser), sent);
+		Object done = executeAsyncPageScript(browser, "awaitAjax", sent, timeout.toMillis());
+
+		if (PAGE_SCRIPT_ABSENT.equals(done)) {
+			fail("Ajax request expected, but full page navigation happened.");
+		}
+		else if (done instanceof Map) {
+			throw toServerErrorException((Map<String, Object>) done);
+		}
+		else if (!TRUE.equals(done)) {
+			throw new TimeoutException("Ajax request expected, but it has not been completed within " + timeout.toMillis() + "ms.");
+		}
+
+		recordViewStateSizes(browser);
+	}
+
+	/**
+	 * Run the given action and wait until all given target elements have been replaced in the DOM, e.g. by the
+	 * <code>update</code> of a <code>p:ajax</code> or <code>p:commandButton</code>. This doesn't poll, but observes the
+	 * document for mutations in a single script execution, so it returns as soon as the last target has been replaced.
+	 * The timeout is the one configured via {@link #configureTimeouts(WebDriver, Duration)}, with millisecond precision.
+	 * @param action The action which is expected to update the given target elements.
+	 * @param targets The target elements which are expected to be updated.
+	 * @throws TimeoutException When not all target elements have been replaced within the timeout.
+	 * @throws ServerErrorException When an ajax request has failed with a server error.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void waitForUpdate(Runnable action, WebElement... targets) {
+		measure("waitForUpdate", () -> {
+			WebDriver browser = targets.length > 0 ? getBrowser(targets[0]) : getBrowser();
+			Map<String, Object> snapshot = executePageScript(browser, "snapshotElements", asList(targets));
+			Number sent = (Number) snapshot.get("sent");
+			action.run();
+			LAST_AJAX_SENT.put(unwrap(browser), sent);
+
+			for (String clientId : (List<String>) snapshot.get("clientIds")) { // Each subsequent wait returns immediately when its target was replaced along with the previous one.
+				waitForMutation(browser, sent, asList(asList(clientId, "replaced")));
+			}
+
+			recordViewStateSizes(browser);
+		}, targets);
+	}
+
+	/**
+	 * Returns the payload sizes and timings of the ajax requests fired by the last helper which waited for ajax in the
+	 * browser bound to the current thread, see {@link #configureTimeouts(WebDriver, Duration)}. These are captured in the
+	 * page, so they're lost on a full page navigation. The requests are in the order they were sent.
+	 * @return The ajax requests fired by the last helper which waited for ajax, or an empty list if there are none.
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<AjaxRequest> getAjaxRequests() {
+		return measure("getAjaxRequests", () -> {
+			WebDriver browser = getBrowser();
+			Number sent = LAST_AJAX_SENT.get(unwrap(browser));
+			List<AjaxRequest> requests = new ArrayList<>();
+
+			if (sent != null) {
+				for (Map<String, Object> request : (List<Map<String, Object>>) executePageScript(browser, "getAjaxRequests", sent)) {
+					requests.add(new AjaxRequest(request));
+				}
+			}
+
+			return requests;
+		});
+	}
+
+	/**
+	 * Assert that the ajax requests fired by the last helper which waited for ajax have all completed within the given
+	 * duration, including the DOM updates and the oncomplete handlers, see {@link #getAjaxRequests()}.
+	 * @param duration The maximum duration of each ajax request.
+	 */
+	public static void assertAjaxCompletesWithin(Duration duration) {
+		measure("assertAjaxCompletesWithin", () -> {
+			List<AjaxRequest> requests = getAjaxRequests();
+			assertFalse("Ajax request expected, but the last helper has not fired any.", requests.isEmpty());
+
+			for (AjaxRequest request : requests) {
+				assertTrue(request + " expected to complete within " + duration.toMillis() + "ms.", request.isCompleted() && request.getDuration().compareTo(duration) <= 0);
+			}
+		});
+	}
+
+	/**
+	 * Assert that the ajax requests fired by the last helper which waited for ajax have together updated at most the
+	 * given amount of components, excluding the view state, see {@link #getAjaxRequests()}.
+	 * @param updates The maximum amount of updated components.
+	 */
+	public static void assertUpdatesAtMost(int updates) {
+		measure("assertUpdatesAtMost", () -> {
+			List<String> updatedIds = new ArrayList<>();
+
+			for (AjaxRequest request : getAjaxRequests()) {
+				updatedIds.addAll(request.getUpdatedIds());
+			}
+
+			assertTrue("At most " + updates + " updates expected, but there were " + updatedIds.size() + ": " + updatedIds, updatedIds.size() <= updates);
+		});
+	}
+
+	/**
+	 * Wait until any of the given watches is satisfied. Each watch is a list of client ID and condition as supported by the
+	 * awaitMutation() function of the page script. Any ajax request sent after the given amount of sent ajax requests which
+	 * fails with a server error will immediately end the wait. A negative amount means the ajax requests still pending.
+	 */
+	@SuppressWarnings("unchecked")
+	private static void waitForMutation(WebDriver browser, Number sent, List<List<String>> watches) {
+		Duration timeout = getTimeout(browser);
+		Object satisfied = executeAsyncPageScript(browser, "awaitMutation", watches, sent, timeout.toMillis());
+
+		if (PAGE_SCRIPT_ABSENT.equals(satisfied)) { // E.g. when the action didn't involve any helper yet. Mutations are checked against the current DOM, so it's safe to install it now.
+			executePageScript(browser, "getAjaxSent");
+			satisfied = executeAsyncPageScript(browser, "awaitMutation", watches, sent, timeout.toMillis());
+		}
+
+		if (satisfied instanceof Map) {
+			throw toServerErrorException((Map<String, Object>) satisfied);
 		}
-		else if (checked) {
-			box.click();
+		else if (!TRUE.equals(satisfied)) {
+			throw new TimeoutException("Any of " + watches + " expected, but it has not happened within " + timeout.toMillis() + "ms.");
 		}
 	}
 
@@ -404,7 +883,7 @@ public final class ArquillianPrimeFaces {
 	 * @param commandLink The element representing the p:commandLink.
 	 */
 	public static void clickCommandLink(WebElement commandLink) {
-		clickCommandElement(commandLink, false);
+		measure("clickCommandLink", () -> clickCommandElement(commandLink, false), commandLink);
 	}
 
 	/**
@@ -412,7 +891,7 @@ public final class ArquillianPrimeFaces {
 	 * @param commandLink The element representing the p:commandLink.
 	 */
 	public static void clickCommandLinkWithRedirect(WebElement commandLink) {
-		clickCommandElement(commandLink, true);
+		measure("clickCommandLinkWithRedirect", () -> clickCommandElement(commandLink, true), commandLink);
 	}
 
 	/**
@@ -420,7 +899,7 @@ public final class ArquillianPrimeFaces {
 	 * @param commandButton The element representing the p:commandButton.
 	 */
 	public static void clickCommandButton(WebElement commandButton) {
-		clickCommandElement(commandButton, false);
+		measure("clickCommandButton", () -> clickCommandElement(commandButton, false), commandButton);
 	}
 
 	/**
@@ -428,20 +907,23 @@ public final class ArquillianPrimeFaces {
 	 * @param commandButton The element representing the p:commandButton.
 	 */
 	public static void clickCommandButtonWithRedirect(WebElement commandButton) {
-		clickCommandElement(commandButton, true);
+		measure("clickCommandButtonWithRedirect", () -> clickCommandElement(commandButton, true), commandButton);
 	}
 
 	private static void clickCommandElement(WebElement command, boolean redirectExpected) {
-		waitGui().until(elementToBeClickable(command));
+		WebDriver browser = getBrowser(command);
+		waitGui(browser).until(elementToBeClickable(command));
 
 		if (redirectExpected) {
-			waitForHttp(command).click();
+			waiting(() -> waitForHttp(command).click());
+			afterNavigation(browser);
 		}
 		else if (command.getAttribute("onclick") != null && command.getAttribute("onclick").contains("PrimeFaces.ab")) {
-			guardAjax(command).click();
+			waitForAjax(browser, command::click);
 		}
 		else {
-			guardHttp(command).click();
+			waiting(() -> guardHttp(command).click());
+			afterNavigation(browser);
 		}
 	}
 
@@ -453,14 +935,18 @@ public final class ArquillianPrimeFaces {
 	 * @param link The element representing the p:link.
 	 */
 	public static void clickLink(WebElement link) {
-		waitGui().until(elementToBeClickable(link));
+		measure("clickLink", () -> {
+			WebDriver browser = getBrowser(link);
+			waitGui(browser).until(elementToBeClickable(link));
 
-		if ("_blank".equals(link.getAttribute("target"))) {
-			link.click();
-		}
-		else {
-			guardHttp(link).click();
-		}
+			if ("_blank".equals(link.getAttribute("target"))) {
+				link.click();
+			}
+			else {
+				waiting(() -> guardHttp(link).click());
+				afterNavigation(browser);
+			}
+		}, link);
 	}
 
 	/**
@@ -468,24 +954,386 @@ public final class ArquillianPrimeFaces {
 	 * @param button The element representing the p:button.
 	 */
 	public static void clickButton(WebElement button) {
-		waitGui().until(elementToBeClickable(button));
-		String onclick = button.getAttribute("onclick");
+		measure("clickButton", () -> {
+			WebDriver browser = getBrowser(button);
+			waitGui(browser).until(elementToBeClickable(button));
+			String onclick = button.getAttribute("onclick");
+
+			if (!onclick.startsWith("window.open") || onclick.endsWith("'_blank')")) {
+				button.click();
+			}
+			else {
+				waiting(() -> guardHttp(button).click());
+				afterNavigation(browser);
+			}
+		}, button);
+	}
+
+
+	// Tables -----------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the column titles and all rows of the current page of a p:dataTable, including the texts of their cells,
+	 * their row keys and their selection state. This is read by a single script execution regardless of the amount of rows,
+	 * which is much faster than invoking {@link WebElement#getText()} on every single cell.
+	 * @param dataTable The element representing the p:dataTable.
+	 * @return The rows of the current page of the p:dataTable.
+	 */
+	public static DataTable getDataTable(WebElement dataTable) {
+		return measure("getDataTable", () -> new DataTable(executePageScript("getDataTable", dataTable)), dataTable);
+	}
+
+	/**
+	 * Show the given page of a p:dataTable via its paginator and return the rows of it. This waits for the ajax request of
+	 * the paginator, unless the given page is already the current page.
+	 * @param dataTable The element representing the p:dataTable.
+	 * @param page The zero-based index of the page.
+	 * @return The rows of the given page of the p:dataTable.
+	 * @throws NoSuchElementException When the p:dataTable has no paginator.
+	 * @throws IndexOutOfBoundsException When the page is out of range.
+	 */
+	public static DataTable showDataTablePage(WebElement dataTable, int page) {
+		return measure("showDataTablePage", () -> {
+			WebDriver browser = getBrowser(dataTable);
+
+			waitForAjaxIfFired(browser, () -> {
+				Map<String, Object> paging = executePageScript(browser, "showDataTablePage", dataTable, page);
+
+				if (paging == null) {
+					throw new NoSuchElementException("Cannot locate paginator of " + dataTable);
+				}
+				else if (!TRUE.equals(paging.get("inRange"))) {
+					throw new IndexOutOfBoundsException("Page " + page + " is out of range of " + paging.get("pageCount") + " pages.");
+				}
 
-		if (!onclick.startsWith("window.open") || onclick.endsWith("'_blank')")) {
-			button.click();
+				return TRUE.equals(paging.get("fired"));
+			});
+
+			return getDataTable(dataTable);
+		}, dataTable);
+	}
+
+	/**
+	 * Returns a lazy iterator over the rows of all pages of a p:dataTable, starting at the first page. The pages are
+	 * walked through the paginator as the iterator advances, so it waits for ajax only once per page, and only the rows of
+	 * the current page are kept in memory. The p:dataTable is left at the last page visited.
+	 * @param dataTable The element representing the p:dataTable.
+	 * @return A lazy iterator over the rows of all pages of the p:dataTable.
+	 * @see #showDataTablePage(WebElement, int)
+	 */
+	public static Iterator<DataTable.Row> iterateDataTableRows(WebElement dataTable) {
+		return new DataTableIterator(dataTable);
+	}
+
+	/**
+	 * Returns a lazy sequential stream over the rows of all pages of a p:dataTable, see
+	 * {@link #iterateDataTableRows(WebElement)}. A short-circuiting operation, such as <code>findFirst()</code>, stops
+	 * walking the pages as soon as it's satisfied.
+	 * @param dataTable The element representing the p:dataTable.
+	 * @return A lazy sequential stream over the rows of all pages of the p:dataTable.
+	 */
+	public static Stream<DataTable.Row> streamDataTableRows(WebElement dataTable) {
+		return StreamSupport.stream(spliteratorUnknownSize(iterateDataTableRows(dataTable), ORDERED | NONNULL), false);
+	}
+
+	/**
+	 * Returns a lazy iterator over the rows of a p:dataTable with <code>liveScroll=true</code> or
+	 * <code>virtualScroll=true</code>, in batches of the given size, starting at the first row. The chunks of rows are
+	 * loaded the same way as scrolling the table body to the bottom does, as the iterator advances, waiting for ajax only
+	 * once per chunk. Only the rows of the current batch and the rows read ahead of it are kept in memory of the JVM, so
+	 * that a huge table can be read with a flat memory footprint there. The browser memory however still grows with the
+	 * table when it has live scroll, because the table keeps all loaded rows in the page, only a virtual scroll table
+	 * replaces them per chunk. Only the last batch may be smaller than the given size. The iteration also ends when
+	 * several chunks in a row yield no rows, so that it doesn't loop forever when the rendered rows stop short of the
+	 * scroll limit of a virtual scroll table, e.g. because the row count of a lazy model is too high.
+	 * @param dataTable The element representing the p:dataTable.
+	 * @param batchSize The amount of rows per batch.
+	 * @return A lazy iterator over the rows of the p:dataTable in batches.
+	 * @throws IllegalArgumentException When the batch size is less than 1.
+	 * @throws NoSuchElementException When the p:dataTable has neither live scroll nor virtual scroll, upon advancing.
+	 */
+	public static Iterator<List<DataTable.Row>> iterateScrolledDataTableRows(WebElement dataTable, int batchSize) {
+		return new ScrolledDataTableIterator(dataTable, batchSize);
+	}
+
+	/**
+	 * Returns a lazy sequential stream over the rows of a p:dataTable with <code>liveScroll=true</code> or
+	 * <code>virtualScroll=true</code>, in batches of the given size, see {@link #iterateScrolledDataTableRows(WebElement, int)}.
+	 * A short-circuiting operation, such as <code>findFirst()</code>, stops scrolling as soon as it's satisfied.
+	 * @param dataTable The element representing the p:dataTable.
+	 * @param batchSize The amount of rows per batch.
+	 * @return A lazy sequential stream over the rows of the p:dataTable in batches.
+	 * @throws IllegalArgumentException When the batch size is less than 1.
+	 */
+	public static Stream<List<DataTable.Row>> streamScrolledDataTableRows(WebElement dataTable, int batchSize) {
+		return StreamSupport.stream(spliteratorUnknownSize(iterateScrolledDataTableRows(dataTable, batchSize), ORDERED | NONNULL), false);
+	}
+
+	/**
+	 * Returns the rendered rows of a live scroll or virtual scroll p:dataTable from the given zero-based row index on, and
+	 * loads the next chunk of rows, waiting for its ajax request. Returns <code>null</code> when all rows have been
+	 * returned. The returned rows may be empty when the row at the given index isn't rendered yet, the next invocation
+	 * will then return them.
+	 */
+	@SuppressWarnings("unchecked")
+	static List<DataTable.Row> scrollDataTable(WebElement dataTable, int offset) {
+		return measure("scrollDataTable", () -> {
+			WebDriver browser = getBrowser(dataTable);
+			List<DataTable.Row> rows = new ArrayList<>();
+			boolean[] fired = { false };
+
+			waitForAjaxIfFired(browser, () -> {
+				Map<String, Object> scrolled = executePageScript(browser, "scrollDataTable", dataTable, offset);
+
+				if (scrolled == null) {
+					throw new NoSuchElementException("Cannot locate live scroll or virtual scroll of " + dataTable);
+				}
+
+				for (Map<String, Object> row : (List<Map<String, Object>>) scrolled.get("rows")) {
+					rows.add(new DataTable.Row(row));
+				}
+
+				return fired[0] = TRUE.equals(scrolled.get("fired"));
+			});
+
+			return rows.isEmpty() && !fired[0] ? null : rows;
+		}, dataTable);
+	}
+
+
+	// Helpers ----------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the browser bound to the current thread via {@link #configureTimeouts(WebDriver, Duration)}, or else the
+	 * browser of the default Graphene context, which is the one injected by <code>&#64;Drone</code>.
+	 */
+	static WebDriver getBrowser() {
+		WebDriver browser = BROWSER.get();
+		return browser != null ? browser : GrapheneContext.getContextFor(Default.class).getWebDriver();
+	}
+
+	/**
+	 * Returns the browser owning the given element, so that the helpers work on the right browser regardless of the
+	 * thread they're invoked in. A Graphene proxy knows its own context, a plain Selenium element wraps its own driver.
+	 * Falls back to {@link #getBrowser()} when it can't be resolved from the element.
+	 */
+	private static WebDriver getBrowser(WebElement element) {
+		if (element instanceof GrapheneProxyInstance) {
+			GrapheneContext context = ((GrapheneProxyInstance) element).getGrapheneContext();
+
+			if (context != null) {
+				return context.getWebDriver();
+			}
 		}
-		else {
-			guardHttp(button).click();
+
+		WebElement target = unwrap(element);
+
+		if (target instanceof WrapsDriver) {
+			return ((WrapsDriver) target).getWrappedDriver();
 		}
+
+		return getBrowser();
 	}
 
+	/**
+	 * Unbind the browser from the current thread, see {@link #configureTimeouts(WebDriver, Duration)}.
+	 */
+	static void releaseBrowser() {
+		BROWSER.remove();
+		GrapheneContext.removeContextFor(Default.class);
+	}
 
-	// Helpers ----------------------------------------------------------------------------------------------------------------------------
+	@SuppressWarnings("unchecked")
+	private static <T> T executeScript(WebDriver browser, String script, Object... arguments) {
+		countCommand();
+		return (T) ((JavascriptExecutor) browser).executeScript(script, arguments);
+	}
+
+	/**
+	 * Prepare the page loaded by a full page navigation by a helper: throw {@link ServerErrorException} when it was served
+	 * with a HTTP error status, turn off its animations right away when fast mode is enabled, instead of only when the next
+	 * helper is invoked, and record its navigation timing.
+	 */
+	private static void afterNavigation(WebDriver browser) {
+		assertNoNavigationError(browser);
+
+		if (isFastMode(browser)) {
+			executePageScript(browser, "enableFastMode");
+		}
+
+		recordNavigation(browser);
+	}
+
+	/**
+	 * Throws {@link ServerErrorException} when the current page was served with a HTTP error status. With HtmlUnit, the
+	 * status is obtained from the web response of the current page, which also covers error pages which can't execute
+	 * scripts, such as plain text. With other browsers, this relies on the Navigation Timing Level 2 API, so it's a no-op
+	 * in browsers which don't expose the response status.
+	 */
+	private static void assertNoNavigationError(WebDriver browser) {
+		Integer status = getHtmlUnitResponseStatus(browser);
+
+		if (status != null) {
+			if (status >= HTTP_BAD_REQUEST) {
+				throw new ServerErrorException("navigation", browser.getTitle(), status);
+			}
+
+			return;
+		}
+
+		Map<String, Object> error = executePageScript(browser, "getNavigationError");
+
+		if (error != null) {
+			throw toServerErrorException(error);
+		}
+	}
+
+	/**
+	 * Record the navigation timing of the current page and the view state sizes of all forms in it in the test being
+	 * recorded by the {@link InstrumentationRule}, if any. This is not attributed to the current operation.
+	 */
+	private static void recordNavigation(WebDriver browser) {
+		if (Instrumentation.isRecording()) {
+			Map<String, Object> timing = unmeasured(() -> executePageScript(browser, "getNavigationTiming"));
+
+			if (timing != null) {
+				Map<String, Number> values = new LinkedHashMap<>();
+
+				for (String metric : NAVIGATION_METRICS) {
+					values.put(metric, (Number) timing.get(metric));
+				}
+
+				Instrumentation.recordNavigation(Objects.toString(timing.get("url"), null), values);
+			}
+
+			recordViewStateSizes(browser);
+		}
+	}
+
+	/**
+	 * Record the view state sizes of all forms in the current page in the test being recorded by the
+	 * {@link InstrumentationRule}, if any. This is not attributed to the current operation.
+	 */
+	private static void recordViewStateSizes(WebDriver browser) {
+		if (Instrumentation.isRecording()) {
+			Instrumentation.recordViewStateSizes(unmeasured(() -> executePageScript(browser, "getViewStateSizes")));
+		}
+	}
+
+	/**
+	 * Returns the HTTP status of the web response of the current page when the given browser is HtmlUnit, else null.
+	 * HtmlUnit doesn't expose the response status via the Navigation Timing API.
+	 */
+	private static Integer getHtmlUnitResponseStatus(WebDriver browser) {
+		WebDriver target = unwrap(browser);
+
+		if (!(target instanceof HtmlUnitDriver)) {
+			return null;
+		}
+
+		try {
+			Method getWebClient = HtmlUnitDriver.class.getDeclaredMethod("getWebClient");
+			getWebClient.setAccessible(true);
+			Page page = ((WebClient) getWebClient.invoke(target)).getCurrentWindow().getTopWindow().getEnclosedPage();
+			return page == null ? null : page.getWebResponse().getStatusCode();
+		}
+		catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot obtain web client of " + target, e);
+		}
+	}
+
+	private static ServerErrorException toServerErrorException(Map<String, Object> error) {
+		Number status = (Number) error.get("status");
+		return new ServerErrorException(Objects.toString(error.get("name"), null), Objects.toString(error.get("message"), null), status == null ? 0 : status.intValue());
+	}
 
 	@SuppressWarnings("unchecked")
-	private static <T> T executeScript(String script) {
-		JavascriptExecutor browser = (JavascriptExecutor) GrapheneContext.getContextFor(Default.class).getWebDriver();
-		return (T) browser.executeScript(script);
+	private static <T> T unwrap(T proxy) {
+		T target = proxy;
+
+		while (target instanceof GrapheneProxyInstance) {
+			target = (T) ((GrapheneProxyInstance) target).unwrap();
+		}
+
+		return target;
+	}
+
+	private static boolean isWidgetMode(WebDriver browser) {
+		Boolean enabled = WIDGET_MODES.get(unwrap(browser));
+		return enabled != null ? enabled : widgetMode;
+	}
+
+	private static boolean isFastMode(WebDriver browser) {
+		Boolean enabled = FAST_MODES.get(unwrap(browser));
+		return enabled != null ? enabled : fastMode;
+	}
+
+	private static void setTimeout(WebDriver browser, Duration timeout) {
+		browser.manage().timeouts().setScriptTimeout(timeout.toMillis() + SCRIPT_TIMEOUT_MARGIN.toMillis(), MILLISECONDS);
+		TIMEOUTS.put(browser, timeout);
+	}
+
+	/**
+	 * Returns the timeout as configured via {@link #configureTimeouts(WebDriver, Duration)}. If not configured, then it
+	 * falls back to the Graphene wait guard interval, which is also used by Graphene#guardAjax().
+	 */
+	private static Duration getTimeout(WebDriver browser) {
+		WebDriver unwrappedBrowser = unwrap(browser);
+		Duration timeout = TIMEOUTS.get(unwrappedBrowser);
+
+		if (timeout == null) {
+			timeout = Duration.ofSeconds(GrapheneContext.getContextFor(Default.class).getConfiguration().getWaitGuardInterval());
+			setTimeout(unwrappedBrowser, timeout);
+		}
+
+		return timeout;
+	}
+
+	/**
+	 * Invoke the given function of the page script and return its result.
+	 * The page script is installed in the current page when absent, e.g. after a full page navigation.
+	 * It's executed in the browser owning the first argument when it's an element, else in {@link #getBrowser()}.
+	 */
+	static <T> T executePageScript(String function, Object... arguments) {
+		WebDriver browser = arguments.length > 0 && arguments[0] instanceof WebElement ? getBrowser((WebElement) arguments[0]) : getBrowser();
+		return executePageScript(browser, function, arguments);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T executePageScript(WebDriver browser, String function, Object... arguments) {
+		Object[] invokerArguments = new Object[arguments.length + 1];
+		invokerArguments[0] = function;
+		System.arraycopy(arguments, 0, invokerArguments, 1, arguments.length);
+		String fastModeEnabler = isFastMode(browser) ? FAST_MODE_ENABLER : ""; // Also when the page script was installed before fast mode was enabled.
+		Object result = executeScript(browser, fastModeEnabler + PAGE_SCRIPT_INVOKER, invokerArguments);
+
+		if (PAGE_SCRIPT_ABSENT.equals(result)) {
+			result = executeScript(browser, PAGE_SCRIPT + fastModeEnabler + PAGE_SCRIPT_INVOKER, invokerArguments);
+		}
+
+		return (T) result;
+	}
+
+	/**
+	 * Invoke the given asynchronous function of the page script and return the result passed to its callback.
+	 * Returns {@link #PAGE_SCRIPT_ABSENT} when the page script is absent, e.g. because of a full page navigation.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T executeAsyncPageScript(WebDriver browser, String function, Object... arguments) {
+		Object[] invokerArguments = new Object[arguments.length + 1];
+		invokerArguments[0] = function;
+		System.arraycopy(arguments, 0, invokerArguments, 1, arguments.length);
+		countCommand();
+		return (T) waiting(() -> ((JavascriptExecutor) browser).executeAsyncScript(ASYNC_PAGE_SCRIPT_INVOKER, invokerArguments));
+	}
+
+	private static String loadPageScript() {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(ArquillianPrimeFaces.class.getResourceAsStream("arquillian-primefaces.js"), UTF_8))) {
+			return reader.lines().collect(joining("\n", "", ";\n"));
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jboss.arquillian.graphene.DefaultGrapheneRuntime;
+import org.jboss.arquillian.graphene.GrapheneRuntime;
+import org.jboss.arquillian.graphene.proxy.GrapheneProxyInstance;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Pool of browsers, so that a single JVM can drive multiple browser sessions in parallel, e.g. one per CPU core. By
+ * default it creates {@link LeanHtmlUnitDriver} browsers with JavaScript enabled. The browsers are created lazily, up to
+ * the given size. An acquired browser is bound to the current thread until it's released, so that the helpers of
+ * {@link ArquillianPrimeFaces} also work in the current thread when there's no element to resolve the browser from.
+ * Acquire the browsers in worker threads, not in the thread running the test, because releasing unbinds the browser
+ * of the current thread, which would otherwise be the one injected by <code>&#64;Drone</code>.
+ * <pre>
+ * ExecutorService executor = Executors.newFixedThreadPool(4);
+ *
+ * try (BrowserPool pool = new BrowserPool(4, Duration.ofSeconds(10))) {
+ *     List&lt;Future&lt;?&gt;&gt; tasks = new ArrayList&lt;&gt;();
+ *
+ *     for (int i = 0; i &lt; 100; i++) {
+ *         tasks.add(executor.submit(() -&gt; pool.run(browser -&gt; {
+ *             browser.get(baseURL + "page.xhtml");
+ *             ArquillianPrimeFaces.clickCommandButton(browser.findElement(By.id("form:submit")));
+ *         })));
+ *     }
+ *
+ *     for (Future&lt;?&gt; task : tasks) {
+ *         task.get();
+ *     }
+ * }
+ * finally {
+ *     executor.shutdown();
+ * }
+ * </pre>
+ *
+ * @author Bauke Scholtz
+ * @see ArquillianPrimeFaces#configureTimeouts(WebDriver, Duration)
+ */
+public final class BrowserPool implements AutoCloseable {
+
+	private static final Logger LOGGER = Logger.getLogger(BrowserPool.class.getName());
+	private static final ThreadLocal<GrapheneRuntime> PUSHED_RUNTIME = new ThreadLocal<>();
+
+	private final int size;
+	private final Duration timeout;
+	private final Supplier<WebDriver> factory;
+	private final Deque<WebDriver> idleBrowsers = new ArrayDeque<>();
+	private int created;
+	private boolean closed;
+
+	/**
+	 * Create a pool of {@link LeanHtmlUnitDriver} browsers with JavaScript enabled.
+	 * @param size The maximum amount of browsers.
+	 * @param timeout The timeout of the helpers, see {@link ArquillianPrimeFaces#configureTimeouts(WebDriver, Duration)}.
+	 */
+	public BrowserPool(int size, Duration timeout) {
+		this(size, timeout, LeanHtmlUnitDriver::new);
+	}
+
+	/**
+	 * Create a pool of browsers created by the given factory.
+	 * @param size The maximum amount of browsers.
+	 * @param timeout The timeout of the helpers, see {@link ArquillianPrimeFaces#configureTimeouts(WebDriver, Duration)}.
+	 * @param factory The factory of the browsers.
+	 * @throws IllegalArgumentException When the size is less than 1.
+	 */
+	public BrowserPool(int size, Duration timeout, Supplier<WebDriver> factory) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Size must be at least 1: " + size);
+		}
+
+		this.size = size;
+		this.timeout = timeout;
+		this.factory = factory;
+	}
+
+	/**
+	 * Acquire a browser and bind it to the current thread. This blocks until a browser is available.
+	 * @return The acquired browser. It's a Graphene proxy, so elements found via it work with Graphene guards as well.
+	 * @throws IllegalStateException When the pool is closed or when the current thread is interrupted while waiting.
+	 */
+	public WebDriver acquire() {
+		WebDriver browser = pollOrReserve();
+
+		if (browser == null) {
+			browser = create();
+		}
+
+		try {
+			pushRuntimeIfAbsent();
+			ArquillianPrimeFaces.configureTimeouts(browser, timeout);
+			return ArquillianPrimeFaces.getBrowser();
+		}
+		catch (RuntimeException | Error e) {
+			ArquillianPrimeFaces.releaseBrowser();
+			popRuntimeIfPushed();
+			discard(browser);
+			throw e;
+		}
+	}
+
+	/**
+	 * Unbind the given browser from the current thread and return it to the pool. Its cookies are deleted, so that the
+	 * next one acquiring it starts with a fresh HTTP session. When that fails, e.g. because the browser died, the browser
+	 * is quit instead, and its slot is freed for a new browser.
+	 * @param browser The browser as obtained by {@link #acquire()}.
+	 */
+	public void release(WebDriver browser) {
+		WebDriver target = browser instanceof GrapheneProxyInstance ? ((GrapheneProxyInstance) browser).unwrap() : browser;
+		ArquillianPrimeFaces.releaseBrowser();
+		popRuntimeIfPushed();
+
+		try {
+			target.manage().deleteAllCookies();
+		}
+		catch (RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Cannot delete cookies of browser, discarding it.", e);
+			discard(target);
+			return;
+		}
+
+		synchronized (this) {
+			if (closed) {
+				target.quit();
+				return;
+			}
+
+			idleBrowsers.add(target);
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Run the given action with an acquired browser and release it afterwards.
+	 * @param action The action to run.
+	 */
+	public void run(Consumer<WebDriver> action) {
+		WebDriver browser = acquire();
+
+		try {
+			action.accept(browser);
+		}
+		finally {
+			release(browser);
+		}
+	}
+
+	/**
+	 * Quit all idle browsers. Browsers which are still acquired are quit as soon as they're released.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+
+		for (WebDriver browser; (browser = idleBrowsers.poll()) != null;) {
+			browser.quit();
+		}
+
+		notifyAll();
+	}
+
+	/**
+	 * Arquillian initializes the Graphene runtime only in the thread running the test, while Graphene guards and waits
+	 * need it in the current thread.
+	 */
+	private static void pushRuntimeIfAbsent() {
+		try {
+			GrapheneRuntime.getInstance();
+		}
+		catch (IllegalStateException absent) {
+			GrapheneRuntime runtime = new DefaultGrapheneRuntime();
+			GrapheneRuntime.pushInstance(runtime);
+			PUSHED_RUNTIME.set(runtime);
+		}
+	}
+
+	private static void popRuntimeIfPushed() {
+		if (PUSHED_RUNTIME.get() != null) {
+			PUSHED_RUNTIME.remove();
+			GrapheneRuntime.popInstance();
+		}
+	}
+
+	/**
+	 * Returns an idle browser, or reserves the slot of a new browser and returns null. This blocks until either is
+	 * possible.
+	 */
+	private synchronized WebDriver pollOrReserve() {
+		while (true) {
+			if (closed) {
+				throw new IllegalStateException("Pool is closed.");
+			}
+
+			if (!idleBrowsers.isEmpty()) {
+				return idleBrowsers.poll();
+			}
+
+			if (created < size) {
+				created++;
+				return null;
+			}
+
+			try {
+				wait();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for a browser.", e);
+			}
+		}
+	}
+
+	/**
+	 * Quit the given browser and free its slot, so that a waiting thread can create a new browser.
+	 */
+	private void discard(WebDriver browser) {
+		try {
+			browser.quit();
+		}
+		catch (RuntimeException e) {
+			LOGGER.log(Level.FINE, "Cannot quit discarded browser.", e);
+		}
+		finally {
+			synchronized (this) {
+				created--;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Create a browser in the reserved slot. When this fails, the slot is freed again, so that a waiting thread can retry.
+	 */
+	private WebDriver create() {
+		try {
+			return factory.get();
+		}
+		catch (RuntimeException | Error e) {
+			synchronized (this) {
+				created--;
+				notifyAll();
+			}
+
+			throw e;
+		}
+	}
+
+}
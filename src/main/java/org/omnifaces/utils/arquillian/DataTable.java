@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The rows of the current page of a p:dataTable as read by {@link ArquillianPrimeFaces#getDataTable(org.openqa.selenium.WebElement)}.
+ * This is a snapshot, it isn't updated when the table changes.
+ *
+ * @author Bauke Scholtz
+ */
+public final class DataTable {
+
+	private final List<String> columns;
+	private final List<Row> rows;
+	private final int page;
+	private final int pageCount;
+	private final int rowCount;
+
+	@SuppressWarnings("unchecked")
+	DataTable(Map<String, Object> dataTable) {
+		columns = toStrings((List<Object>) dataTable.get("columns"));
+		List<Row> rows = new ArrayList<>();
+
+		for (Map<String, Object> row : (List<Map<String, Object>>) dataTable.get("rows")) {
+			rows.add(new Row(row));
+		}
+
+		this.rows = unmodifiableList(rows);
+		page = ((Number) dataTable.get("page")).intValue();
+		pageCount = ((Number) dataTable.get("pageCount")).intValue();
+		rowCount = ((Number) dataTable.get("rowCount")).intValue();
+	}
+
+	/**
+	 * Returns the column titles.
+	 * @return The column titles.
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Returns the rows of the current page.
+	 * @return The rows of the current page.
+	 */
+	public List<Row> getRows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the zero-based index of the current page, or 0 when the table has no paginator.
+	 * @return The zero-based index of the current page.
+	 */
+	public int getPage() {
+		return page;
+	}
+
+	/**
+	 * Returns the amount of pages, or 1 when the table has no paginator.
+	 * @return The amount of pages.
+	 */
+	public int getPageCount() {
+		return pageCount;
+	}
+
+	/**
+	 * Returns the amount of rows of all pages together, or the amount of rows of the current page when the table has no
+	 * paginator.
+	 * @return The amount of rows of all pages together.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns whether the current page is the last page.
+	 * @return Whether the current page is the last page.
+	 */
+	public boolean isLastPage() {
+		return page >= pageCount - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "DataTable[columns=" + columns + ", rows=" + rows + ", page=" + page + ", pageCount=" + pageCount
+			+ ", rowCount=" + rowCount + "]";
+	}
+
+	private static List<String> toStrings(List<Object> values) {
+		List<String> strings = new ArrayList<>();
+
+		for (Object value : values) {
+			strings.add(Objects.toString(value, null)); // May be a non-String CharSequence in HtmlUnit.
+		}
+
+		return unmodifiableList(strings);
+	}
+
+	/**
+	 * A row of a p:dataTable.
+	 */
+	public static final class Row {
+
+		private final int index;
+		private final String key;
+		private final boolean selected;
+		private final List<String> cells;
+
+		@SuppressWarnings("unchecked")
+		Row(Map<String, Object> row) {
+			index = ((Number) row.get("index")).intValue();
+			key = Objects.toString(row.get("key"), null);
+			selected = (Boolean) row.get("selected");
+			cells = toStrings((List<Object>) row.get("cells"));
+		}
+
+		/**
+		 * Returns the zero-based index of the row in all pages together, as in <code>data-ri</code>, or -1 if it's unknown.
+		 * @return The zero-based index of the row.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Returns the row key, as in <code>data-rk</code>, or <code>null</code> when the table doesn't have selection enabled.
+		 * @return The row key.
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns whether the row is selected.
+		 * @return Whether the row is selected.
+		 */
+		public boolean isSelected() {
+			return selected;
+		}
+
+		/**
+		 * Returns the texts of the cells.
+		 * @return The texts of the cells.
+		 */
+		public List<String> getCells() {
+			return cells;
+		}
+
+		/**
+		 * Returns the text of the cell at the given zero-based column index.
+		 * @param column The zero-based column index.
+		 * @return The text of the cell.
+		 * @throws IndexOutOfBoundsException When there's no such column.
+		 */
+		public String getCell(int column) {
+			return cells.get(column);
+		}
+
+		@Override
+		public String toString() {
+			return "Row[index=" + index + ", key=" + key + ", selected=" + selected + ", cells=" + cells + "]";
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.omnifaces.utils.arquillian.DataTable.Row;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Iterates over the rows of all pages of a p:dataTable, keeping only the current page in memory. Use
+ * {@link ArquillianPrimeFaces#iterateDataTableRows(WebElement)} to obtain an instance.
+ *
+ * @author Bauke Scholtz
+ */
+final class DataTableIterator implements Iterator<Row> {
+
+	private final WebElement dataTable;
+	private DataTable page;
+	private Iterator<Row> rows;
+
+	DataTableIterator(WebElement dataTable) {
+		this.dataTable = dataTable;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (page == null) {
+			page = ArquillianPrimeFaces.getDataTable(dataTable);
+
+			if (page.getPage() != 0) {
+				page = ArquillianPrimeFaces.showDataTablePage(dataTable, 0);
+			}
+
+			rows = page.getRows().iterator();
+		}
+
+		while (!rows.hasNext() && !page.isLastPage()) {
+			page = ArquillianPrimeFaces.showDataTablePage(dataTable, page.getPage() + 1);
+			rows = page.getRows().iterator();
+		}
+
+		return rows.hasNext();
+	}
+
+	@Override
+	public Row next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		return rows.next();
+	}
+
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Writes a dataset of random rows, such as the content of a database table behind a lazy p:dataTable or a
+ * p:autoComplete, to a CSV, SQL or JSON Lines file. The columns are generated by the generators of {@link Entropy}.
+ * The rows are generated in chunks in parallel, one thread per CPU core by default, and the chunks are written in order
+ * via a {@link FileChannel} as soon as they're ready. Only a few chunks per thread are held in memory at any moment, so
+ * millions of rows take no more memory than a few thousand.
+ * <p>
+ * Each chunk is generated with its own {@link SeededEntropy}, split from the one of the dataset, and bound to the
+ * generating thread during the chunk. So the file is reproducible from the seed of the dataset, regardless of the amount
+ * of threads. The seed is by default split from the current thread, so that with the {@link EntropyRule} the dataset is
+ * reproducible from the seed of the test.
+ * <pre>
+ * DatasetBuilder.create("item")
+ *     .withRowNumber("id")
+ *     .withColumn("name", () -&gt; Entropy.getRandomStringOfFixedLength(20))
+ *     .withColumn("delivery", () -&gt; Entropy.getRandomEnumValue(DayOfWeek.class))
+ *     .withColumn("created", () -&gt; Entropy.getRandomLocalDateBetweenYears(2000, 2018))
+ *     .write(Paths.get("target/item.sql"), 1_000_000, DatasetBuilder.Format.SQL);
+ * </pre>
+ *
+ * @author Bauke Scholtz
+ */
+public final class DatasetBuilder {
+
+	private static final int CHUNK_SIZE = 10_000;
+	private static final int CHUNKS_PER_THREAD = 2;
+	private static final Pattern SQL_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+	private static final Pattern SQL_TABLE_NAME = Pattern.compile(SQL_IDENTIFIER + "(\\." + SQL_IDENTIFIER + ")?");
+
+	private final String name;
+	private final List<String> columns = new ArrayList<>();
+	private final List<Supplier<?>> generators = new ArrayList<>();
+	private Long seed;
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+
+	private DatasetBuilder(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Start building a dataset with the given name. The name is used as table name in SQL format, it must then be a
+	 * plain SQL identifier, optionally qualified with a schema name, e.g. <code>item</code> or <code>shop.item</code>.
+	 * @param name The name of the dataset, e.g. the table name.
+	 * @return The dataset builder.
+	 */
+	public static DatasetBuilder create(String name) {
+		return new DatasetBuilder(name);
+	}
+
+
+	// Columns ----------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Add a column with the given name whose values are supplied by the given generator, typically a method of
+	 * {@link Entropy}. The value is written as is when it's a number or boolean, as its name when it's an enum, as
+	 * <code>null</code> or empty when it's <code>null</code>, else as its string representation, e.g. an ISO 8601 date.
+	 * In SQL format, the column name must be a plain SQL identifier, such as <code>created_at</code>.
+	 * @param name The column name.
+	 * @param generator The generator of the column values.
+	 * @return This dataset builder.
+	 */
+	public DatasetBuilder withColumn(String name, Supplier<?> generator) {
+		columns.add(name);
+		generators.add(generator);
+		return this;
+	}
+
+	/**
+	 * Add a column with the given name whose values are the 1-based row numbers, e.g. for a primary key.
+	 * @param name The column name.
+	 * @return This dataset builder.
+	 */
+	public DatasetBuilder withRowNumber(String name) {
+		return withColumn(name, null);
+	}
+
+
+	// Generation -------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Generate the rows from the given seed instead of a seed split from the current thread.
+	 * @param seed The seed of the dataset.
+	 * @return This dataset builder.
+	 */
+	public DatasetBuilder withSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Generate the rows in the given amount of threads instead of one per CPU core.
+	 * @param parallelism The amount of threads.
+	 * @return This dataset builder.
+	 * @throws IllegalArgumentException When the amount is less than 1.
+	 */
+	public DatasetBuilder withParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1, but is " + parallelism);
+		}
+
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Write the given amount of rows in the given format to the given file. The parent directories are created when
+	 * absent, and an existing file is overwritten.
+	 * @param file The file to write to.
+	 * @param rows The amount of rows.
+	 * @param format The format.
+	 * @throws IllegalStateException When there are no columns.
+	 * @throws IllegalArgumentException When the name of the dataset or a column is not valid in the given format.
+	 * @throws UncheckedIOException When writing fails.
+	 */
+	public void write(Path file, long rows, Format format) {
+		if (columns.isEmpty()) {
+			throw new IllegalStateException("Dataset " + name + " has no columns");
+		}
+
+		StringBuilder header = new StringBuilder();
+		format.appendHeader(header, name, columns); // Before opening the file, so that an invalid name doesn't truncate it.
+		SeededEntropy entropy = seed != null ? new SeededEntropy(seed) : Entropy.current().split();
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+		Deque<Future<ByteBuffer>> chunks = new ArrayDeque<>();
+
+		try {
+			if (file.toAbsolutePath().getParent() != null) {
+				Files.createDirectories(file.toAbsolutePath().getParent());
+			}
+
+			try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)) {
+				write(channel, UTF_8.encode(CharBuffer.wrap(header)));
+
+				for (long firstRow = 0; firstRow < rows; firstRow += CHUNK_SIZE) {
+					if (chunks.size() >= parallelism * CHUNKS_PER_THREAD) {
+						write(channel, chunks.poll().get());
+					}
+
+					SeededEntropy chunkEntropy = entropy.split();
+					long chunkFirstRow = firstRow;
+					int chunkRows = (int) Math.min(CHUNK_SIZE, rows - firstRow);
+					chunks.add(executor.submit(() -> generate(chunkEntropy, chunkFirstRow, chunkRows, format)));
+				}
+
+				while (!chunks.isEmpty()) {
+					write(channel, chunks.poll().get());
+				}
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while writing dataset " + name, e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+
+			throw new IllegalStateException("Cannot generate dataset " + name, e.getCause());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private ByteBuffer generate(SeededEntropy entropy, long firstRow, int rows, Format format) {
+		StringBuilder chunk = new StringBuilder(rows * columns.size() * 16);
+		Object[] values = new Object[columns.size()];
+
+		entropy.run(() -> {
+			for (long row = firstRow + 1; row <= firstRow + rows; row++) {
+				for (int i = 0; i < values.length; i++) {
+					Supplier<?> generator = generators.get(i);
+					values[i] = generator != null ? generator.get() : row;
+				}
+
+				format.appendRow(chunk, name, columns, values);
+			}
+		});
+
+		return UTF_8.encode(CharBuffer.wrap(chunk));
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+
+	// Formats ----------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The file formats of a dataset.
+	 */
+	public enum Format {
+
+		/**
+		 * Comma separated values as per RFC 4180, with the column names in the first line.
+		 */
+		CSV {
+			@Override
+			void appendHeader(StringBuilder builder, String name, List<String> columns) {
+				appendValues(builder, columns.toArray());
+			}
+
+			@Override
+			void appendRow(StringBuilder builder, String name, List<String> columns, Object[] values) {
+				appendValues(builder, values);
+			}
+
+			private void appendValues(StringBuilder builder, Object[] values) {
+				for (int i = 0; i < values.length; i++) {
+					if (i > 0) {
+						builder.append(',');
+					}
+
+					if (values[i] instanceof Number || values[i] instanceof Boolean) {
+						builder.append(values[i]);
+					}
+					else if (values[i] != null) {
+						String value = toString(values[i]);
+
+						if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+							builder.append(value);
+						}
+						else {
+							builder.append('"').append(value.replace("\"", "\"\"")).append('"');
+						}
+					}
+				}
+
+				builder.append('\n');
+			}
+		},
+
+		/**
+		 * An SQL <code>INSERT</code> statement per row, with the name of the dataset as table name. The names are
+		 * validated as plain SQL identifiers, they are not quoted, as that would make them case sensitive in most
+		 * databases. A number which is not finite, such as <code>NaN</code>, is written as a string literal.
+		 */
+		SQL {
+			@Override
+			void appendHeader(StringBuilder builder, String name, List<String> columns) {
+				checkIdentifier(SQL_TABLE_NAME, "table", name);
+
+				for (String column : columns) {
+					checkIdentifier(SQL_IDENTIFIER, "column", column);
+				}
+			}
+
+			@Override
+			void appendRow(StringBuilder builder, String name, List<String> columns, Object[] values) {
+				builder.append("INSERT INTO ").append(name).append(" (").append(String.join(", ", columns)).append(") VALUES (");
+
+				for (int i = 0; i < values.length; i++) {
+					if (i > 0) {
+						builder.append(", ");
+					}
+
+					if (values[i] == null) {
+						builder.append("NULL");
+					}
+					else if (isFinite(values[i])) {
+						builder.append(values[i]);
+					}
+					else if (values[i] instanceof Boolean) {
+						builder.append((Boolean) values[i] ? "TRUE" : "FALSE");
+					}
+					else {
+						builder.append('\'').append(toString(values[i]).replace("'", "''")).append('\'');
+					}
+				}
+
+				builder.append(");\n");
+			}
+		},
+
+		/**
+		 * A JSON object per line, with the column names as keys. A number which is not finite, such as
+		 * <code>NaN</code>, is written as a string, as JSON doesn't support it.
+		 */
+		JSONL {
+			@Override
+			void appendRow(StringBuilder builder, String name, List<String> columns, Object[] values) {
+				builder.append('{');
+
+				for (int i = 0; i < values.length; i++) {
+					if (i > 0) {
+						builder.append(',');
+					}
+
+					appendString(builder, columns.get(i)).append(':');
+
+					if (values[i] == null || values[i] instanceof Boolean || isFinite(values[i])) {
+						builder.append(values[i]);
+					}
+					else {
+						appendString(builder, toString(values[i]));
+					}
+				}
+
+				builder.append("}\n");
+			}
+
+			private StringBuilder appendString(StringBuilder builder, String value) {
+				builder.append('"');
+
+				for (int i = 0; i < value.length(); i++) {
+					char c = value.charAt(i);
+
+					if (c == '"' || c == '\\') {
+						builder.append('\\').append(c);
+					}
+					else if (c < ' ') {
+						builder.append(String.format("\\u%04x", (int) c));
+					}
+					else {
+						builder.append(c);
+					}
+				}
+
+				return builder.append('"');
+			}
+		};
+
+		void appendHeader(StringBuilder builder, String name, List<String> columns) {
+			// NOOP by default.
+		}
+
+		abstract void appendRow(StringBuilder builder, String name, List<String> columns, Object[] values);
+
+		static String toString(Object value) {
+			return value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+		}
+
+		static boolean isFinite(Object value) {
+			if (value instanceof Double || value instanceof Float) {
+				return !Double.isNaN(((Number) value).doubleValue()) && !Double.isInfinite(((Number) value).doubleValue());
+			}
+
+			return value instanceof Number;
+		}
+
+		static void checkIdentifier(Pattern pattern, String type, String identifier) {
+			if (identifier == null || !pattern.matcher(identifier).matches()) {
+				throw new IllegalArgumentException("Invalid SQL " + type + " name " + identifier + ", it must match " + pattern);
+			}
+		}
+	}
+
+}
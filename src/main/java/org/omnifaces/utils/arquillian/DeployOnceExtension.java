@@ -0,0 +1,44 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import org.jboss.arquillian.core.spi.LoadableExtension;
+
+/**
+ * Arquillian extension which deploys each archive only once per container during the whole test run, instead of once
+ * per test class, so that test classes deploying the same archive share the deployment. An archive is identified by its
+ * name and its {@link DeploymentBuilder#hash(org.jboss.shrinkwrap.api.Archive) content hash}. When a test class deploys
+ * an archive with the same name but a different content, the previous one is undeployed first. The deployments are
+ * undeployed right before the container stops.
+ * <p>
+ * The extension is registered automatically, but it's only active when configured in <code>arquillian.xml</code>:
+ * <pre>
+ * &lt;extension qualifier="deploy-once"&gt;
+ *     &lt;property name="enabled"&gt;true&lt;/property&gt;
+ * &lt;/extension&gt;
+ * </pre>
+ * This works best with <code>&#64;Deployment(testable=false)</code> and the {@link DeploymentBuilder}, because the
+ * archive of a testable deployment includes the test class and is thus different for every test class.
+ *
+ * @author Bauke Scholtz
+ */
+public class DeployOnceExtension implements LoadableExtension {
+
+	static final String QUALIFIER = "deploy-once";
+
+	@Override
+	public void register(ExtensionBuilder builder) {
+		builder.observer(DeployOnceObserver.class);
+	}
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.jboss.arquillian.config.descriptor.api.ArquillianDescriptor;
+import org.jboss.arquillian.config.descriptor.api.ExtensionDef;
+import org.jboss.arquillian.container.spi.client.container.DeployableContainer;
+import org.jboss.arquillian.container.spi.client.container.DeploymentException;
+import org.jboss.arquillian.container.spi.client.deployment.Deployment;
+import org.jboss.arquillian.container.spi.client.deployment.DeploymentDescription;
+import org.jboss.arquillian.container.spi.client.protocol.metadata.ProtocolMetaData;
+import org.jboss.arquillian.container.spi.context.annotation.DeploymentScoped;
+import org.jboss.arquillian.container.spi.event.DeployDeployment;
+import org.jboss.arquillian.container.spi.event.DeploymentEvent;
+import org.jboss.arquillian.container.spi.event.UnDeployDeployment;
+import org.jboss.arquillian.container.spi.event.container.BeforeStop;
+import org.jboss.arquillian.core.api.Instance;
+import org.jboss.arquillian.core.api.InstanceProducer;
+import org.jboss.arquillian.core.api.annotation.Inject;
+import org.jboss.arquillian.core.api.annotation.Observes;
+import org.jboss.arquillian.core.spi.EventContext;
+import org.jboss.shrinkwrap.api.Archive;
+
+/**
+ * Intercepts the deployments and undeployments of the test classes on behalf of the {@link DeployOnceExtension}. The
+ * interceptors have a low precedence, so that they run within the deployment context activated by Arquillian.
+ *
+ * @author Bauke Scholtz
+ */
+class DeployOnceObserver {
+
+	private final Map<String, Deployed> deployments = new LinkedHashMap<>();
+	private Boolean enabled;
+
+	@Inject
+	private Instance<ArquillianDescriptor> descriptor;
+
+	@Inject
+	@DeploymentScoped
+	private InstanceProducer<DeploymentDescription> deploymentDescription;
+
+	@Inject
+	@DeploymentScoped
+	private InstanceProducer<Deployment> deployment;
+
+	@Inject
+	@DeploymentScoped
+	private InstanceProducer<ProtocolMetaData> protocolMetaData;
+
+	/**
+	 * Skip the deployment when the same archive is still deployed, and provide the protocol metadata of the previous
+	 * deployment instead, so that e.g. <code>&#64;ArquillianResource URL</code> still works.
+	 */
+	public void deploy(@Observes(precedence = -100) EventContext<DeployDeployment> context) throws DeploymentException {
+		DeployDeployment event = context.getEvent();
+
+		if (!isEnabled() || !event.getDeployment().getDescription().isArchiveDeployment()) {
+			context.proceed();
+			return;
+		}
+
+		Archive<?> archive = getArchive(event);
+		String key = getKey(event, archive);
+		String hash = DeploymentBuilder.hash(archive);
+		Deployed previous = deployments.get(key);
+
+		if (previous != null && previous.hash.equals(hash)) {
+			deploymentDescription.set(event.getDeployment().getDescription());
+			deployment.set(event.getDeployment());
+			protocolMetaData.set(previous.protocolMetaData);
+			event.getDeployment().deployed();
+			return;
+		}
+
+		if (previous != null) {
+			deployments.remove(key);
+			previous.container.undeploy(previous.archive);
+		}
+
+		context.proceed();
+
+		if (event.getDeployment().isDeployed()) {
+			deployments.put(key, new Deployed(event.getDeployableContainer(), archive, hash, protocolMetaData.get()));
+		}
+	}
+
+	/**
+	 * Skip the undeployment of a shared archive, it's undeployed when the container stops.
+	 */
+	public void undeploy(@Observes(precedence = -100) EventContext<UnDeployDeployment> context) {
+		UnDeployDeployment event = context.getEvent();
+
+		if (isEnabled() && event.getDeployment().getDescription().isArchiveDeployment() && deployments.containsKey(getKey(event, getArchive(event)))) {
+			event.getDeployment().undeployed();
+		}
+		else {
+			context.proceed();
+		}
+	}
+
+	/**
+	 * Undeploy the shared archives of the container which is about to stop, so that they don't linger in a managed
+	 * container which persists its deployments.
+	 */
+	public void undeployAll(@Observes BeforeStop event) throws DeploymentException {
+		for (Iterator<Deployed> iterator = deployments.values().iterator(); iterator.hasNext();) {
+			Deployed deployed = iterator.next();
+
+			if (deployed.container == event.getDeployableContainer()) {
+				iterator.remove();
+				deployed.container.undeploy(deployed.archive);
+			}
+		}
+	}
+
+	private boolean isEnabled() {
+		if (enabled == null) {
+			enabled = false;
+
+			for (ExtensionDef extension : descriptor.get().getExtensions()) {
+				if (DeployOnceExtension.QUALIFIER.equals(extension.getExtensionName())) {
+					enabled = !"false".equals(extension.getExtensionProperty("enabled"));
+				}
+			}
+		}
+
+		return enabled;
+	}
+
+	private static Archive<?> getArchive(DeploymentEvent event) {
+		DeploymentDescription description = event.getDeployment().getDescription();
+		return description.getTestableArchive() != null ? description.getTestableArchive() : description.getArchive();
+	}
+
+	private static String getKey(DeploymentEvent event, Archive<?> archive) {
+		return event.getContainerName() + "/" + archive.getName();
+	}
+
+	private static final class Deployed {
+
+		private final DeployableContainer<?> container;
+		private final Archive<?> archive;
+		private final String hash;
+		private final ProtocolMetaData protocolMetaData;
+
+		private Deployed(DeployableContainer<?> container, Archive<?> archive, String hash, ProtocolMetaData protocolMetaData) {
+			this.container = container;
+			this.archive = archive;
+			this.hash = hash;
+			this.protocolMetaData = protocolMetaData;
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.jboss.shrinkwrap.api.Archive;
+import org.jboss.shrinkwrap.api.Node;
+import org.jboss.shrinkwrap.api.ShrinkWrap;
+import org.jboss.shrinkwrap.api.asset.ArchiveAsset;
+import org.jboss.shrinkwrap.api.asset.Asset;
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.asset.FileAsset;
+import org.jboss.shrinkwrap.api.importer.ExplodedImporter;
+import org.jboss.shrinkwrap.api.spec.JavaArchive;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.jboss.shrinkwrap.resolver.api.maven.Maven;
+
+/**
+ * Builds the web archive to deploy in an Arquillian test. Unlike importing the build output with the
+ * <code>MavenImporter</code> and resolving the libraries with <code>Maven.resolver()</code> in every test class, the
+ * build output is imported straight from <code>target/classes</code> and the paths of the files of the resolved libraries
+ * are cached in <code>target/arquillian-primefaces/deployments</code>, so that the Maven resolver is only invoked when
+ * the cache is absent or stale. The libraries are then first resolved from the local repository only, and only from the
+ * remote repositories when that fails. Once cached, building works fully offline.
+ * <p>
+ * The assembled archive itself is only cached in memory of the current JVM, keyed by the name and the inputs of the
+ * builder, so that all test classes building the same archive don't assemble it again. It's therefore assumed that the
+ * build output and the resources don't change during the test run. Every build returns its own shallow copy of the
+ * cached archive, so that additions by one test class, such as the Arquillian protocol libraries of a testable
+ * deployment, don't end up in the archive of another test class.
+ * <pre>
+ * &#64;Deployment(testable=false)
+ * public static WebArchive createDeployment() {
+ *     return DeploymentBuilder.create("test.war")
+ *         .withBuildOutput()
+ *         .withPrimeFaces("6.2")
+ *         .withClasses(Bean.class)
+ *         .withWebResources("com/example/page.xhtml")
+ *         .withBeansXml()
+ *         .build();
+ * }
+ * </pre>
+ *
+ * @author Bauke Scholtz
+ */
+public final class DeploymentBuilder {
+
+	private static final Path CACHE_DIRECTORY = Paths.get("target", "arquillian-primefaces", "deployments");
+	private static final Path BUILD_OUTPUT_DIRECTORY = Paths.get("target", "classes");
+	private static final Map<String, WebArchive> ARCHIVES = new ConcurrentHashMap<>();
+
+	private final String name;
+	private final List<String> libraries = new ArrayList<>();
+	private final List<String> inputs = new ArrayList<>();
+	private final List<Consumer<WebArchive>> additions = new ArrayList<>();
+
+	private DeploymentBuilder(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Start building a web archive with the given name. The name must be fixed, because it's part of the cache key.
+	 * @param name The name of the web archive, e.g. <code>test.war</code>.
+	 * @return The deployment builder.
+	 */
+	public static DeploymentBuilder create(String name) {
+		return new DeploymentBuilder(name);
+	}
+
+
+	// Libraries --------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Add PrimeFaces of the given version, including its transitive dependencies.
+	 * @param version The PrimeFaces version.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withPrimeFaces(String version) {
+		return withLibrary("org.primefaces:primefaces:" + version);
+	}
+
+	/**
+	 * Add OmniFaces of the given version, including its transitive dependencies.
+	 * @param version The OmniFaces version.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withOmniFaces(String version) {
+		return withLibrary("org.omnifaces:omnifaces:" + version);
+	}
+
+	/**
+	 * Add the library of the given Maven coordinates, including its transitive dependencies.
+	 * @param coordinates The Maven coordinates in <code>groupId:artifactId:version</code> format.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withLibrary(String coordinates) {
+		inputs.add("library:" + coordinates);
+		libraries.add(coordinates);
+		return this;
+	}
+
+	/**
+	 * Add the build output of the current project in <code>target/classes</code> as a library.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withBuildOutput() {
+		return add("buildOutput", archive -> archive.addAsLibrary(ShrinkWrap.create(ExplodedImporter.class, "build-output.jar")
+			.importDirectory(BUILD_OUTPUT_DIRECTORY.toFile()).as(JavaArchive.class)));
+	}
+
+
+	// Content ----------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Add the given classes, including their inner classes.
+	 * @param classes The classes.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withClasses(Class<?>... classes) {
+		return add("classes:" + Arrays.stream(classes).map(Class::getName).collect(Collectors.joining(",")), archive -> archive.addClasses(classes));
+	}
+
+	/**
+	 * Add the given classpath resources in the root of the web archive, by their file names.
+	 * @param resourceNames The classpath resource names.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withWebResources(String... resourceNames) {
+		return add("webResources:" + String.join(",", resourceNames), archive -> {
+			for (String resourceName : resourceNames) {
+				archive.addAsWebResource(resourceName);
+			}
+		});
+	}
+
+	/**
+	 * Add an empty <code>WEB-INF/beans.xml</code>.
+	 * @return This deployment builder.
+	 */
+	public DeploymentBuilder withBeansXml() {
+		return add("beansXml", archive -> archive.addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml"));
+	}
+
+	private DeploymentBuilder add(String input, Consumer<WebArchive> addition) {
+		inputs.add(input);
+		additions.add(addition);
+		return this;
+	}
+
+
+	// Build ------------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Build the web archive, or copy the one built before in the current JVM with the same name and builder inputs.
+	 * The cache key is computed before assembling, so an archive built before is copied without touching the build
+	 * output, the resources or the libraries. The copy is shallow: it has its own entries, but shares their assets, such
+	 * as the library archives, with the cached archive.
+	 * @return A new web archive.
+	 * @throws UncheckedIOException When the cache directory cannot be read or written.
+	 */
+	public WebArchive build() {
+		String key = hex(sha256().digest((name + "\n" + String.join("\n", inputs)).getBytes(UTF_8)));
+		WebArchive archive = ARCHIVES.computeIfAbsent(key, k -> assemble());
+		return ShrinkWrap.create(WebArchive.class, name).merge(archive);
+	}
+
+	private WebArchive assemble() {
+		WebArchive archive = ShrinkWrap.create(WebArchive.class, name);
+		additions.forEach(addition -> addition.accept(archive));
+
+		for (String coordinates : libraries) {
+			archive.addAsLibraries(resolve(coordinates));
+		}
+
+		return archive;
+	}
+
+	/**
+	 * Returns the SHA-256 hash of the name and the content of the given archive, including nested archives. The content
+	 * of file assets, such as libraries resolved from the local Maven repository, is identified by the path, size and
+	 * last modified time of the file, so that these don't need to be read.
+	 * @param archive The archive.
+	 * @return The hex encoded hash.
+	 */
+	public static String hash(Archive<?> archive) {
+		MessageDigest digest = sha256();
+		update(digest, archive);
+		return hex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, Archive<?> archive) {
+		digest.update(archive.getName().getBytes(UTF_8));
+		List<Node> nodes = archive.getContent().values().stream()
+			.filter(node -> node.getAsset() != null)
+			.sorted(Comparator.comparing(node -> node.getPath().get()))
+			.collect(Collectors.toList());
+
+		for (Node node : nodes) {
+			Asset asset = node.getAsset();
+			digest.update(node.getPath().get().getBytes(UTF_8));
+
+			if (asset instanceof ArchiveAsset) {
+				update(digest, ((ArchiveAsset) asset).getArchive());
+			}
+			else if (asset instanceof FileAsset) {
+				File file = ((FileAsset) asset).getSource();
+				digest.update((file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified()).getBytes(UTF_8));
+			}
+			else {
+				try (InputStream input = asset.openStream()) {
+					byte[] buffer = new byte[8192];
+
+					for (int length; (length = input.read(buffer)) != -1;) {
+						digest.update(buffer, 0, length);
+					}
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+	}
+
+
+	// Resolver ---------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the files of the library of the given Maven coordinates and its transitive dependencies. The cached files
+	 * are returned when they still all exist, else they're resolved and cached again.
+	 */
+	private static File[] resolve(String coordinates) {
+		Path cache = CACHE_DIRECTORY.resolve("resolved-" + hex(sha256().digest(coordinates.getBytes(UTF_8))) + ".txt");
+
+		try {
+			if (Files.exists(cache)) {
+				File[] files = Files.readAllLines(cache, UTF_8).stream().map(File::new).toArray(File[]::new);
+
+				if (files.length > 0 && allExist(files)) {
+					return files;
+				}
+			}
+
+			File[] files = resolveWithMaven(coordinates);
+			Files.createDirectories(CACHE_DIRECTORY);
+			Files.write(cache, paths(files), UTF_8);
+			return files;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static File[] resolveWithMaven(String coordinates) {
+		try {
+			return Maven.configureResolver().workOffline().resolve(coordinates).withTransitivity().asFile();
+		}
+		catch (RuntimeException notInLocalRepository) {
+			return Maven.resolver().resolve(coordinates).withTransitivity().asFile();
+		}
+	}
+
+	private static boolean allExist(File[] files) {
+		for (File file : files) {
+			if (!file.isFile()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static List<String> paths(File[] files) {
+		List<String> paths = new ArrayList<>();
+
+		for (File file : files) {
+			paths.add(file.getAbsolutePath());
+		}
+
+		return paths;
+	}
+
+
+	// Helpers ----------------------------------------------------------------------------------------------------------------------------
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+
+		for (byte b : bytes) {
+			hex.append(String.format("%02x", b));
+		}
+
+		return hex.toString();
+	}
+
+}
@@ -12,39 +12,86 @@
  */
 package org.omnifaces.utils.arquillian;
 
+import java.math.BigInteger;
+import java.security.SecureRandom;
 import java.time.LocalDate;
-import java.time.Month;
-import java.time.YearMonth;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * For IT, it's the best practice to introduce entropy so that any potential corner cases could be spotted during IT.
+ * <p>
+ * The values are generated by the {@link SeededEntropy} bound to the current thread, or else by an unseeded instance
+ * of the current thread, so that the generation doesn't contend between threads. Use the {@link EntropyRule} to bind
+ * one with a logged seed to each test, so that a failing test can be reproduced.
  *
  * @author Bauke Scholtz
+ * @see SeededEntropy
+ * @see EntropyRule
  */
 public final class Entropy {
 
-	private static final List<String> LETTERS_AND_DIGITS = IntStream
-		.range(Character.MIN_VALUE, Byte.MAX_VALUE)
-		.filter(Character::isLetterOrDigit)
-		.mapToObj(i -> String.valueOf((char) i))
-		.collect(Collectors.toList());
+	/** The name of the system property with the ID of the current test fork: <code>entropy.fork</code>. */
+	public static final String FORK_PROPERTY = "entropy.fork";
+
+	private static final String SUREFIRE_FORK_PROPERTY = "surefire.forkNumber";
+	private static final int FORK_BITS = 16;
+	private static final long MAX_FORK = (1L << FORK_BITS) - 1;
+
+	private static final AtomicLong COUNTER = new AtomicLong();
+
+	private static final ThreadLocal<SeededEntropy> SEEDED = new ThreadLocal<>();
+	private static final ThreadLocal<SeededEntropy> UNSEEDED = ThreadLocal.withInitial(() -> new SeededEntropy(ThreadLocalRandom.current().nextLong()));
+
+	private static volatile boolean fastMode;
 
 	private Entropy() {
 		throw new AssertionError("This is a utility class.");
 	}
 
 	/**
-	 * Returns random string. Current implementation just returns the {@link UUID}.
+	 * Enable or disable fast mode. It's by default disabled.
+	 * In fast mode, {@link #getRandomString()} doesn't use {@link UUID#randomUUID()}, which draws from a shared
+	 * {@link java.security.SecureRandom} and may thus contend between threads or even block on a machine with little
+	 * entropy, such as a CI container. It then combines a random salt, drawn only once per JVM upon the first string,
+	 * with a counter, which guarantees unique strings across all threads of the JVM, and makes them unique across JVMs
+	 * with overwhelming probability. To guarantee unique strings across parallel test forks as well, pass the fork number
+	 * as <code>entropy.fork</code> system property, e.g. via <code>&lt;entropy.fork&gt;${surefire.forkNumber}&lt;/entropy.fork&gt;</code>
+	 * in the <code>systemPropertyVariables</code> of the surefire or failsafe plugin. The <code>surefire.forkNumber</code>
+	 * system property itself is used as well when present. The fork number must be between 0 and 65535, else generating
+	 * the strings fails. The strings are not suitable for cryptographic purposes.
+	 * Fast mode wins over a {@link SeededEntropy} bound to the current thread, such as by the {@link EntropyRule}, so
+	 * that forks replaying the same seed don't generate the same strings.
+	 * Best place to run this is a {@link org.junit.BeforeClass} annotated method.
+	 * @param enabled Whether fast mode is enabled.
+	 */
+	public static void configureFastMode(boolean enabled) {
+		fastMode = enabled;
+	}
+
+	/**
+	 * Returns random string in the format of a {@link UUID}. In fast mode, see {@link #configureFastMode(boolean)},
+	 * it's guaranteed unique, also when a {@link SeededEntropy} is bound to the current thread. The string is then not
+	 * reproducible from the seed, but the bound instance still advances as if it generated the string, so that all
+	 * other values are still reproduced. Else when a {@link SeededEntropy} is bound to the current thread, it's
+	 * generated by that instance, else it's just the {@link UUID#randomUUID()}.
 	 * @return Random string.
 	 */
 	public static String getRandomString() {
-		return UUID.randomUUID().toString();
+		boolean fast = fastMode;
+		SeededEntropy seeded = SEEDED.get();
+
+		if (seeded != null) {
+			String string = seeded.getRandomString(); // Also in fast mode, so that the other values remain reproducible.
+
+			if (!fast) {
+				return string;
+			}
+		}
+
+		return fast ? getUniqueString(Node.VALUE, COUNTER.incrementAndGet()) : UUID.randomUUID().toString();
 	}
 
 	/**
@@ -53,7 +100,55 @@ public final class Entropy {
 	 * @return Random string of fixed length.
 	 */
 	public static String getRandomStringOfFixedLength(int length) {
-		return IntStream.range(0, length).mapToObj(i -> getRandomListItem(LETTERS_AND_DIGITS)).collect(Collectors.joining());
+		return current().getRandomStringOfFixedLength(length);
+	}
+
+	/**
+	 * Returns random string of fixed length consisting of characters of given alphabet.
+	 * @param length The desired amount of characters.
+	 * @param alphabet The characters to choose from.
+	 * @return Random string of fixed length consisting of characters of given alphabet.
+	 * @throws IllegalArgumentException When the alphabet is empty.
+	 */
+	public static String getRandomStringOfFixedLength(int length, char... alphabet) {
+		return current().getRandomStringOfFixedLength(length, alphabet);
+	}
+
+	/**
+	 * Returns given amount of random strings of fixed length.
+	 * @param count The desired amount of strings.
+	 * @param length The desired amount of characters per string.
+	 * @return Given amount of random strings of fixed length.
+	 */
+	public static List<String> getRandomStringsOfFixedLength(int count, int length) {
+		return current().getRandomStringsOfFixedLength(count, length);
+	}
+
+	/**
+	 * Returns given amount of random strings of fixed length consisting of characters of given alphabet. This reuses a
+	 * single character buffer for all strings, so it's much cheaper than invoking
+	 * {@link #getRandomStringOfFixedLength(int, char...)} in a loop.
+	 * @param count The desired amount of strings.
+	 * @param length The desired amount of characters per string.
+	 * @param alphabet The characters to choose from.
+	 * @return Given amount of random strings of fixed length consisting of characters of given alphabet.
+	 * @throws IllegalArgumentException When the alphabet is empty.
+	 */
+	public static List<String> getRandomStringsOfFixedLength(int count, int length, char... alphabet) {
+		return current().getRandomStringsOfFixedLength(count, length, alphabet);
+	}
+
+	/**
+	 * Appends random characters of given alphabet to given string builder. This is useful to compose a larger string,
+	 * such as a line of a data file, without creating intermediate strings.
+	 * @param builder The string builder to append to.
+	 * @param length The desired amount of characters.
+	 * @param alphabet The characters to choose from.
+	 * @return The given string builder.
+	 * @throws IllegalArgumentException When the alphabet is empty.
+	 */
+	public static StringBuilder appendRandomStringOfFixedLength(StringBuilder builder, int length, char... alphabet) {
+		return current().appendRandomStringOfFixedLength(builder, length, alphabet);
 	}
 
 	/**
@@ -63,17 +158,66 @@ public final class Entropy {
 	 * @return Random number between given values, inclusive.
 	 */
 	public static int getRandomNumberBetween(int min, int max) {
-		return ThreadLocalRandom.current().nextInt(min, max + 1);
+		return current().getRandomNumberBetween(min, max);
 	}
 
 	/**
-	 * Returns random number of fixed length.
-	 * @param length The desired amount of digits.
+	 * Returns random number of fixed length. The length is at most 18, as not all numbers of 19 digits fit in a
+	 * <code>long</code>. Since version 0.4 a longer length throws {@link IllegalArgumentException}, formerly a length of
+	 * 19 returned a negative number in about 1 of 12 invocations and a longer length threw
+	 * {@link NumberFormatException}. Use {@link #getRandomBigIntegerOfFixedLength(int)} or
+	 * {@link #getRandomDigitsOfFixedLength(int)} for longer numbers.
+	 * @param length The desired amount of digits, at most 18.
 	 * @return Random number of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1 or more than 18.
 	 */
 	public static long getRandomNumberOfFixedLength(int length) {
-		String zeroes = String.join("", Collections.nCopies(length - 1, "0"));
-		return Long.parseLong("1" + zeroes) + ThreadLocalRandom.current().nextLong(Long.parseLong("9" + zeroes));
+		return current().getRandomNumberOfFixedLength(length);
+	}
+
+	/**
+	 * Returns given amount of random numbers of fixed length. The length is at most 18, see
+	 * {@link #getRandomNumberOfFixedLength(int)}.
+	 * @param count The desired amount of numbers.
+	 * @param length The desired amount of digits per number, at most 18.
+	 * @return Given amount of random numbers of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1 or more than 18.
+	 */
+	public static long[] getRandomNumbersOfFixedLength(int count, int length) {
+		return current().getRandomNumbersOfFixedLength(count, length);
+	}
+
+	/**
+	 * Returns random number of fixed length, which may be longer than a <code>long</code> can hold.
+	 * @param length The desired amount of digits.
+	 * @return Random number of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1.
+	 */
+	public static BigInteger getRandomBigIntegerOfFixedLength(int length) {
+		return current().getRandomBigIntegerOfFixedLength(length);
+	}
+
+	/**
+	 * Returns random digits of fixed length, without leading zero, such as an account number. The length is not
+	 * limited.
+	 * @param length The desired amount of digits.
+	 * @return Random digits of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1.
+	 */
+	public static String getRandomDigitsOfFixedLength(int length) {
+		return current().getRandomDigitsOfFixedLength(length);
+	}
+
+	/**
+	 * Appends random digits of fixed length, without leading zero, to given string builder. This is useful to compose a
+	 * larger string, such as a line of a data file, without creating intermediate strings.
+	 * @param builder The string builder to append to.
+	 * @param length The desired amount of digits.
+	 * @return The given string builder.
+	 * @throws IllegalArgumentException When the length is less than 1.
+	 */
+	public static StringBuilder appendRandomDigitsOfFixedLength(StringBuilder builder, int length) {
+		return current().appendRandomDigitsOfFixedLength(builder, length);
 	}
 
 	/**
@@ -83,7 +227,7 @@ public final class Entropy {
 	 * @param <E> Generic list element type.
 	 */
 	public static <E> E getRandomListItem(List<E> list) {
-		return list.get(ThreadLocalRandom.current().nextInt(0, list.size()));
+		return current().getRandomListItem(list);
 	}
 
 	/**
@@ -93,8 +237,7 @@ public final class Entropy {
 	 * @param <E> Generic enum type.
 	 */
 	public static <E extends Enum<E>> E getRandomEnumValue(Class<E> enumType) {
-		E[] values = enumType.getEnumConstants();
-		return values[ThreadLocalRandom.current().nextInt(0, values.length)];
+		return current().getRandomEnumValue(enumType);
 	}
 
 	/**
@@ -104,9 +247,7 @@ public final class Entropy {
 	 * @return Random local date between given years, inclusive.
 	 */
 	public static LocalDate getRandomLocalDateBetweenYears(int minYear, int maxYear) {
-		LocalDate minDate = LocalDate.of(minYear, Month.JANUARY, 1);
-		LocalDate maxDate = LocalDate.of(maxYear, Month.DECEMBER, Month.DECEMBER.maxLength());
-		return LocalDate.ofEpochDay(ThreadLocalRandom.current().nextLong(minDate.toEpochDay(), maxDate.toEpochDay()));
+		return current().getRandomLocalDateBetweenYears(minYear, maxYear);
 	}
 
 	/**
@@ -116,11 +257,99 @@ public final class Entropy {
 	 * @return Random local date representing date of birth between given ages, inclusive.
 	 */
 	public static LocalDate getRandomDateOfBirthBetweenAges(int minAge, int maxAge) {
-		LocalDate now = LocalDate.now();
-		int year = getRandomNumberBetween(now.minusYears(maxAge - 1).getYear(), now.minusYears(minAge + 1).getYear());
-		Month month = getRandomEnumValue(Month.class);
-		int day = getRandomNumberBetween(1, YearMonth.of(year, month).lengthOfMonth());
-		return LocalDate.of(year, month, day);
+		return current().getRandomDateOfBirthBetweenAges(minAge, maxAge);
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the instance bound to the current thread, or else the unseeded instance of the current thread.
+	 */
+	static SeededEntropy current() {
+		SeededEntropy seeded = SEEDED.get();
+		return seeded != null ? seeded : UNSEEDED.get();
+	}
+
+	/**
+	 * Binds the given instance to the current thread, or unbinds when <code>null</code>, and returns the previously
+	 * bound instance.
+	 */
+	static SeededEntropy bind(SeededEntropy entropy) {
+		SeededEntropy previous = SEEDED.get();
+
+		if (entropy != null) {
+			SEEDED.set(entropy);
+		}
+		else {
+			SEEDED.remove();
+		}
+
+		return previous;
+	}
+
+	/**
+	 * Returns the fork number of the <code>entropy.fork</code> or else the <code>surefire.forkNumber</code> system
+	 * property, or null if there is none. This is also used to tell apart the files written by parallel test forks.
+	 * @throws IllegalStateException When the fork number is not a number between 0 and 65535, e.g. an unresolved
+	 * placeholder, as it then can't guarantee distinct values across forks.
+	 */
+	static Long getFork() {
+		String fork = System.getProperty(FORK_PROPERTY, System.getProperty(SUREFIRE_FORK_PROPERTY));
+
+		if (fork == null) {
+			return null;
+		}
+
+		try {
+			long number = Long.parseLong(fork.trim());
+
+			if (number >= 0 && number <= MAX_FORK) {
+				return number;
+			}
+		}
+		catch (NumberFormatException ignore) {
+			// Handled below.
+		}
+
+		throw new IllegalStateException("Fork number must be a number between 0 and " + MAX_FORK + ", but is '" + fork
+			+ "', check the " + FORK_PROPERTY + " system property");
+	}
+
+	/**
+	 * Returns the given salt, with the given fork number in the low bits if any, so that the nodes of distinct forks of
+	 * the same run are guaranteed distinct, and the nodes of other JVMs are distinct with overwhelming probability.
+	 */
+	static long getNode(Long fork, long salt) {
+		return fork != null ? salt << FORK_BITS | fork & MAX_FORK : salt;
+	}
+
+	/**
+	 * Returns a string in the format of a {@link UUID} which is unique for the given node and counter. The least
+	 * significant bits are unique per counter of the same node, and the most significant bits are unique per node when
+	 * the least significant bits are the same, so that neither half is constant per JVM.
+	 */
+	static String getUniqueString(long node, long counter) {
+		long leastSignificantBits = mix(counter ^ node);
+		return new UUID(mix(node) ^ Long.rotateLeft(leastSignificantBits, 32), leastSignificantBits).toString();
+	}
+
+	/**
+	 * The node of this JVM, drawn only upon the first unique string, so that the other generators never touch the
+	 * {@link SecureRandom} seeding.
+	 */
+	private static final class Node {
+		private static final long VALUE = getNode(getFork(), new SecureRandom().nextLong());
+	}
+
+	/**
+	 * Scrambles the bits the same way as {@link java.util.SplittableRandom} does. This is a bijection, so distinct
+	 * values remain distinct.
+	 */
+	private static long mix(long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 
 }
\ No newline at end of file
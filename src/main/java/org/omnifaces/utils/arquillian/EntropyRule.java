@@ -0,0 +1,144 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+import org.junit.Rule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+
+/**
+ * Binds a {@link SeededEntropy} to the thread running each test, so that the values generated by {@link Entropy}
+ * during the test are reproducible. The seed is logged before each test, and once more when the test fails. By default
+ * each test gets a random seed. To re-run a failed test with the logged seed, set the <code>entropy.seed</code> system
+ * property, e.g. <code>mvn verify -Dit.test=SomeIT#someTest -Dentropy.seed=1234</code>, or pass the seed to the
+ * constructor. When the tests run in parallel forks and the fork number is passed as <code>entropy.fork</code> system
+ * property, see {@link Entropy#FORK_PROPERTY}, each fork derives its own stream from the seed and the fork number, so
+ * that forks replaying the same seed don't generate the same values. The fork number is then logged as well, and a
+ * failed test is re-run with both. In fast mode, see {@link Entropy#configureFastMode(boolean)}, the strings of
+ * {@link Entropy#getRandomString()} are unique instead of reproducible, so that parallel forks replaying the same seed
+ * don't generate the same strings.
+ * <pre>
+ * &#64;Rule
+ * public EntropyRule entropy = new EntropyRule();
+ * </pre>
+ * Worker threads of a test should use their own instance, split from the one of the test in the thread running the
+ * test:
+ * <pre>
+ * SeededEntropy worker = entropy.split();
+ * executor.submit(() -&gt; worker.run(() -&gt; Entropy.getRandomString()));
+ * </pre>
+ *
+ * @author Bauke Scholtz
+ * @see Rule
+ */
+public class EntropyRule extends TestWatcher {
+
+	/** The name of the system property with the seed for all tests: <code>entropy.seed</code>. */
+	public static final String SEED_PROPERTY = "entropy.seed";
+
+	private static final Logger LOGGER = Logger.getLogger(EntropyRule.class.getName());
+
+	private final Long seed;
+	private long rootSeed;
+	private Long fork;
+	private SeededEntropy entropy;
+	private SeededEntropy previous;
+
+	/**
+	 * Uses the seed of the <code>entropy.seed</code> system property, or else a random seed per test.
+	 */
+	public EntropyRule() {
+		this(Long.getLong(SEED_PROPERTY));
+	}
+
+	/**
+	 * Uses the given seed for every test.
+	 * @param seed The seed.
+	 */
+	public EntropyRule(long seed) {
+		this(Long.valueOf(seed));
+	}
+
+	private EntropyRule(Long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	protected void starting(Description description) {
+		rootSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+		fork = Entropy.getFork();
+		entropy = new SeededEntropy(getForkSeed(rootSeed, fork));
+		previous = Entropy.bind(entropy);
+		LOGGER.info(() -> description.getDisplayName() + " uses entropy seed " + rootSeed + (fork != null ? " in fork " + fork : ""));
+	}
+
+	@Override
+	protected void failed(Throwable e, Description description) {
+		LOGGER.severe(() -> description.getDisplayName() + " failed with entropy seed " + rootSeed
+			+ (fork != null ? " in fork " + fork : "") + ", re-run it with -D" + SEED_PROPERTY + "=" + rootSeed
+			+ (fork != null ? " -D" + Entropy.FORK_PROPERTY + "=" + fork : ""));
+	}
+
+	@Override
+	protected void finished(Description description) {
+		Entropy.bind(previous);
+		previous = null;
+	}
+
+	/**
+	 * Returns the seed of the current test, as to be passed via the <code>entropy.seed</code> system property. In a fork,
+	 * the instance of the test is derived from this seed and the fork number.
+	 * @return The seed of the current test.
+	 * @throws IllegalStateException When no test has started yet.
+	 */
+	public long getSeed() {
+		getEntropy();
+		return rootSeed;
+	}
+
+	/**
+	 * Returns the instance of the current test, which is bound to the thread running the test.
+	 * @return The instance of the current test.
+	 * @throws IllegalStateException When no test has started yet.
+	 */
+	public SeededEntropy getEntropy() {
+		if (entropy == null) {
+			throw new IllegalStateException("No test has started yet");
+		}
+
+		return entropy;
+	}
+
+	/**
+	 * Returns a new instance split from the one of the current test, for use by a worker thread of the test, see
+	 * {@link SeededEntropy#split()}. Invoke this in the thread running the test, so that the split is reproducible.
+	 * @return A new instance for use by a worker thread.
+	 * @throws IllegalStateException When no test has started yet.
+	 */
+	public SeededEntropy split() {
+		return getEntropy().split();
+	}
+
+	/**
+	 * Returns the given seed when there's no fork number, else a seed derived from both, so that each fork has its own
+	 * stream.
+	 */
+	static long getForkSeed(long seed, Long fork) {
+		return fork != null ? new SplittableRandom(seed + fork * 0x9E3779B97F4A7C15L).nextLong() : seed;
+	}
+
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.lang.Boolean.TRUE;
+import static java.util.Arrays.asList;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * Fills the inputs of a form in as few browser round trips as possible. Use {@link ArquillianPrimeFaces#fill(WebElement)}
+ * to obtain an instance.
+ *
+ * @author Bauke Scholtz
+ */
+public final class FormFiller {
+
+	private final WebElement form;
+	private final List<Field> fields = new ArrayList<>();
+
+	FormFiller(WebElement form) {
+		this.form = form;
+	}
+
+	/**
+	 * Fill the value of a p:inputText.
+	 * @param inputText The element representing the p:inputText.
+	 * @param value The input value.
+	 * @return This builder.
+	 */
+	public FormFiller inputText(WebElement inputText, Serializable value) {
+		return add("inputText", inputText, value.toString(), () -> ArquillianPrimeFaces.setInputTextValue(inputText, value));
+	}
+
+	/**
+	 * Fill the value of a p:inputMask.
+	 * @param inputMask The element representing the p:inputMask.
+	 * @param value The input value.
+	 * @return This builder.
+	 */
+	public FormFiller inputMask(WebElement inputMask, Serializable value) {
+		return add("inputMask", inputMask, value.toString(), () -> ArquillianPrimeFaces.setInputMaskValue(inputMask, value));
+	}
+
+	/**
+	 * Fill the value of a p:inputNumber.
+	 * @param inputNumber The element representing the p:inputNumber.
+	 * @param value The input value.
+	 * @return This builder.
+	 */
+	public FormFiller inputNumber(WebElement inputNumber, Number value) {
+		return add("inputNumber", inputNumber, String.valueOf(value), () -> ArquillianPrimeFaces.setInputNumberValue(inputNumber, value));
+	}
+
+	/**
+	 * Fill the value of a p:spinner.
+	 * @param spinner The element representing the p:spinner.
+	 * @param value The input value.
+	 * @return This builder.
+	 */
+	public FormFiller spinner(WebElement spinner, Number value) {
+		return add("spinner", spinner, String.valueOf(value), () -> ArquillianPrimeFaces.setSpinnerValue(spinner, value));
+	}
+
+	/**
+	 * Fill the value of a p:inputXxx having a p:slider.
+	 * @param slider The element representing the p:inputXxx having a p:slider.
+	 * @param value The input value.
+	 * @return This builder.
+	 */
+	public FormFiller slider(WebElement slider, Number value) {
+		return add("slider", slider, String.valueOf(value), () -> ArquillianPrimeFaces.setSliderValue(slider, value));
+	}
+
+	/**
+	 * Fill the query and then the selected value of a p:autoComplete. This always requires ajax and is therefore
+	 * delegated to {@link ArquillianPrimeFaces#setAutoCompleteValue(WebElement, String, Serializable)}.
+	 * @param autoComplete The element representing the p:autoComplete.
+	 * @param query The query to run auto complete for.
+	 * @param value The selected value. This must match the item value (not label!).
+	 * @return This builder.
+	 */
+	public FormFiller autoComplete(WebElement autoComplete, String query, Serializable value) {
+		return add("autoComplete", autoComplete, value.toString(), () -> ArquillianPrimeFaces.setAutoCompleteValue(autoComplete, query, value));
+	}
+
+	/**
+	 * Fill the selected value of a p:selectOneMenu.
+	 * @param selectOneMenu The element representing the p:selectOneMenu.
+	 * @param value The selected value. This must match the f:selectItem value (not label!).
+	 * @return This builder.
+	 */
+	public FormFiller selectOneMenu(WebElement selectOneMenu, Serializable value) {
+		return add("selectOneMenu", selectOneMenu, value.toString(), () -> ArquillianPrimeFaces.setSelectOneMenuValue(selectOneMenu, value));
+	}
+
+	/**
+	 * Fill the selected value of a p:selectOneRadio.
+	 * @param selectOneRadio The element representing the p:selectOneRadio.
+	 * @param value The selected value. This must match the f:selectItem value (not label!).
+	 * @return This builder.
+	 */
+	public FormFiller selectOneRadio(WebElement selectOneRadio, Serializable value) {
+		return add("selectOneRadio", selectOneRadio, value.toString(), () -> ArquillianPrimeFaces.setSelectOneRadioValue(selectOneRadio, value));
+	}
+
+	/**
+	 * Fill the selected value of a p:selectOneButton.
+	 * @param selectOneButton The element representing the p:selectOneButton.
+	 * @param value The selected value. This must match the f:selectItem value (not label!).
+	 * @return This builder.
+	 */
+	public FormFiller selectOneButton(WebElement selectOneButton, Serializable value) {
+		return add("selectOneButton", selectOneButton, value.toString(), () -> ArquillianPrimeFaces.setSelectOneButtonValue(selectOneButton, value));
+	}
+
+	/**
+	 * Fill the checked state of a p:selectBooleanCheckbox.
+	 * @param selectBooleanCheckbox The element representing the p:selectBooleanCheckbox.
+	 * @param checked The checked state.
+	 * @return This builder.
+	 */
+	public FormFiller selectBooleanCheckbox(WebElement selectBooleanCheckbox, boolean checked) {
+		return add("selectBooleanCheckbox", selectBooleanCheckbox, checked, () -> ArquillianPrimeFaces.setSelectBooleanCheckboxChecked(selectBooleanCheckbox, checked));
+	}
+
+	/**
+	 * Apply all fills in the order they were added. Subsequent inputs are filled by a single script execution, which ends
+	 * early when an input fires an ajax request, so that it's waited for before the next inputs are filled. Any input
+	 * which can't be filled by script is filled by its single input helper.
+	 */
+	public void apply() {
+		Instrumentation.measure("fill", () -> {
+			List<List<Object>> script = new ArrayList<>(fields.size());
+
+			for (Field field : fields) {
+				script.add(asList(field.element, field.type, field.value));
+			}
+
+			int offset = 0;
+
+			while (offset < fields.size()) {
+				Map<String, Object> filled = ArquillianPrimeFaces.fill(form, script, offset);
+				offset = ((Number) filled.get("filled")).intValue();
+
+				if (offset < fields.size() && !TRUE.equals(filled.get("fired"))) {
+					fields.get(offset++).fallback.run();
+				}
+			}
+		}, form);
+	}
+
+	private FormFiller add(String type, WebElement element, Object value, Runnable fallback) {
+		fields.add(new Field(type, element, value, fallback));
+		return this;
+	}
+
+	private static final class Field {
+
+		private final String type;
+		private final WebElement element;
+		private final Object value;
+		private final Runnable fallback;
+
+		private Field(String type, WebElement element, Object value, Runnable fallback) {
+			this.type = type;
+			this.element = element;
+			this.value = value;
+			this.fallback = fallback;
+		}
+	}
+
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Supplier;
+
+import org.jboss.arquillian.graphene.proxy.GrapheneProxyInstance;
+import org.jboss.arquillian.graphene.proxy.Interceptor;
+import org.jboss.arquillian.graphene.proxy.InvocationContext;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Measures the public operations of {@link ArquillianPrimeFaces} while a test is being recorded by the
+ * {@link InstrumentationRule}. Per operation, the wall time, the amount of WebDriver commands and the time spent waiting
+ * on the server is recorded. When no test is being recorded, the operations are run as is.
+ * <p>
+ * WebDriver commands are counted at the script executions of {@link ArquillianPrimeFaces} and by an interceptor on the
+ * Graphene proxies of the elements passed to the operation, which propagates to the elements found via them. Commands on
+ * elements which are not Graphene proxies, and the commands which Graphene itself issues to guard requests, are not counted.
+ *
+ * @author Bauke Scholtz
+ */
+final class Instrumentation {
+
+	private static final ThreadLocal<Test> TEST = new ThreadLocal<>();
+	private static final ThreadLocal<Operation> OPERATION = new ThreadLocal<>();
+
+	private Instrumentation() {
+		throw new AssertionError("This is a utility class.");
+	}
+
+
+	// Recording --------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Start recording the operations of the given test in the current thread.
+	 */
+	static void start(String name) {
+		TEST.set(new Test(name));
+	}
+
+	/**
+	 * Stop recording in the current thread and return the recorded test, or null if nothing was being recorded.
+	 */
+	static Test stop() {
+		Test test = TEST.get();
+		TEST.remove();
+		return test;
+	}
+
+	/**
+	 * Record a sample of the given operation with the given values in the currently recorded test, if any.
+	 */
+	static void record(String operation, Map<String, ? extends Number> values) {
+		Test test = TEST.get();
+
+		if (test != null) {
+			test.samples.add(new Sample(operation, values));
+		}
+	}
+
+	/**
+	 * Record the given navigation timing of the given URL in the currently recorded test, if any, as operation
+	 * "navigation" and as the next entry in the timeline of the test. Negative values are skipped, they represent events
+	 * which haven't happened yet.
+	 */
+	static void recordNavigation(String url, Map<String, ? extends Number> timing) {
+		Test test = TEST.get();
+
+		if (test == null) {
+			return;
+		}
+
+		Map<String, Number> values = new LinkedHashMap<>();
+
+		for (Entry<String, ? extends Number> value : timing.entrySet()) {
+			if (value.getValue().doubleValue() >= 0) {
+				values.put(value.getKey(), value.getValue());
+			}
+		}
+
+		record("navigation", values);
+		test.timeline.add(new Sample(url, values));
+	}
+
+	/**
+	 * Returns whether a test is being recorded in the current thread.
+	 */
+	static boolean isRecording() {
+		return TEST.get() != null;
+	}
+
+	/**
+	 * Record the given view state sizes in bytes by form ID in the currently recorded test, if any, as operation
+	 * "viewState:formId" with the size and its growth since the first size recorded for the same form in the test.
+	 */
+	static void recordViewStateSizes(Map<String, ? extends Number> sizes) {
+		Test test = TEST.get();
+
+		if (test == null) {
+			return;
+		}
+
+		for (Entry<String, ? extends Number> size : sizes.entrySet()) {
+			long bytes = size.getValue().longValue();
+			long initialBytes = test.initialViewStateSizes.computeIfAbsent(size.getKey(), k -> bytes);
+			Map<String, Number> values = new LinkedHashMap<>();
+			values.put("bytes", bytes);
+			values.put("growthBytes", bytes - initialBytes);
+			record("viewState:" + size.getKey(), values);
+		}
+	}
+
+
+	// Measuring --------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Run the given operation and record it, unless it's nested in another operation, which then gets all of its numbers.
+	 */
+	static void measure(String operation, Runnable action, WebElement... elements) {
+		measure(operation, () -> {
+			action.run();
+			return null;
+		}, elements);
+	}
+
+	/**
+	 * Call the given operation and record it, unless it's nested in another operation, which then gets all of its numbers.
+	 */
+	static <T> T measure(String operation, Supplier<T> action, WebElement... elements) {
+		if (TEST.get() == null) {
+			return action.get();
+		}
+
+		Operation current = OPERATION.get();
+
+		if (current != null) {
+			current.register((Object[]) elements);
+			return action.get();
+		}
+
+		current = new Operation();
+		OPERATION.set(current);
+		current.register((Object[]) elements);
+		long start = System.nanoTime();
+
+		try {
+			return action.get();
+		}
+		finally {
+			long wallNanos = System.nanoTime() - start - current.overheadNanos;
+			OPERATION.remove();
+			current.release();
+
+			Map<String, Number> values = new LinkedHashMap<>();
+			values.put("wallMillis", wallNanos / 1e6);
+			values.put("commands", current.commands);
+			values.put("waitMillis", current.waitNanos / 1e6);
+			values.put("clientMillis", (wallNanos - current.waitNanos) / 1e6);
+			record(operation, values);
+		}
+	}
+
+	/**
+	 * Run the given action which waits on the server, such as an ajax request or a page navigation, and add its time to
+	 * the wait time of the current operation.
+	 */
+	static void waiting(Runnable action) {
+		waiting(() -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Call the given action which waits on the server, such as an ajax request or a page navigation, and add its time to
+	 * the wait time of the current operation.
+	 */
+	static <T> T waiting(Supplier<T> action) {
+		Operation current = OPERATION.get();
+
+		if (current == null) {
+			return action.get();
+		}
+
+		long start = System.nanoTime();
+
+		try {
+			return action.get();
+		}
+		finally {
+			current.waitNanos += System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Call the given action which only collects instrumentation data, without attributing its commands and time to the
+	 * current operation.
+	 */
+	static <T> T unmeasured(Supplier<T> action) {
+		Operation current = OPERATION.get();
+
+		if (current == null) {
+			return action.get();
+		}
+
+		OPERATION.remove();
+		long start = System.nanoTime();
+
+		try {
+			return action.get();
+		}
+		finally {
+			current.overheadNanos += System.nanoTime() - start;
+			OPERATION.set(current);
+		}
+	}
+
+	/**
+	 * Count a WebDriver command issued outside the element proxies, such as a script execution, in the current operation.
+	 */
+	static void countCommand() {
+		Operation current = OPERATION.get();
+
+		if (current != null) {
+			current.commands++;
+		}
+	}
+
+
+	// Inner classes ----------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The samples recorded during a single test.
+	 */
+	static final class Test {
+
+		private final String name;
+		private final List<Sample> samples = new ArrayList<>();
+		private final List<Sample> timeline = new ArrayList<>();
+		private final Map<String, Long> initialViewStateSizes = new HashMap<>();
+
+		private Test(String name) {
+			this.name = name;
+		}
+
+		String getName() {
+			return name;
+		}
+
+		List<Sample> getSamples() {
+			return unmodifiableList(samples);
+		}
+
+		/**
+		 * Returns the navigations in the order they happened, as samples named after the URL navigated to.
+		 */
+		List<Sample> getTimeline() {
+			return unmodifiableList(timeline);
+		}
+	}
+
+	/**
+	 * A single recorded sample of an operation.
+	 */
+	static final class Sample {
+
+		private final String operation;
+		private final Map<String, Number> values;
+
+		private Sample(String operation, Map<String, ? extends Number> values) {
+			this.operation = operation;
+			this.values = unmodifiableMap(new LinkedHashMap<>(values));
+		}
+
+		String getOperation() {
+			return operation;
+		}
+
+		Map<String, Number> getValues() {
+			return values;
+		}
+	}
+
+	/**
+	 * The numbers of the operation currently being measured. This is also the interceptor counting the commands on the
+	 * Graphene proxies of the elements, it registers itself on every element proxy found via them.
+	 */
+	private static final class Operation implements Interceptor {
+
+		private final List<GrapheneProxyInstance> proxies = new ArrayList<>();
+		private long commands;
+		private long waitNanos;
+		private long overheadNanos;
+		private boolean released;
+
+		private void register(Object... elements) {
+			for (Object element : elements) {
+				if (element instanceof GrapheneProxyInstance) {
+					((GrapheneProxyInstance) element).registerInterceptor(this);
+					proxies.add((GrapheneProxyInstance) element);
+				}
+				else if (element instanceof List) {
+					register(((List<?>) element).toArray());
+				}
+			}
+		}
+
+		private void release() {
+			released = true;
+
+			for (GrapheneProxyInstance proxy : proxies) {
+				proxy.unregisterInterceptor(this);
+			}
+
+			proxies.clear();
+		}
+
+		@Override
+		public Object intercept(InvocationContext context) throws Throwable {
+			Object result = context.invoke();
+
+			if (!released && SearchContext.class.isAssignableFrom(context.getMethod().getDeclaringClass())) { // Skips e.g. WrapsElement and Object methods.
+				commands++;
+				register(result);
+			}
+
+			return result;
+		}
+
+		@Override
+		public int getPrecedence() {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.Rule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
+import org.omnifaces.utils.arquillian.Instrumentation.Sample;
+import org.omnifaces.utils.arquillian.Instrumentation.Test;
+
+/**
+ * Records the public operations of {@link ArquillianPrimeFaces} during each test and writes a report with the p50, p95 and
+ * max of the wall time, the amount of WebDriver commands, the time spent waiting on the server and the time spent on the
+ * client, per operation per test and per operation over all tests. The report is written as both
+ * <code>instrumentation.json</code> and <code>instrumentation.csv</code> in the given directory once when the JVM exits,
+ * and covers all tests recorded in the JVM. When the tests run in parallel forks, pass the fork number as
+ * <code>entropy.fork</code> system property, see {@link Entropy#FORK_PROPERTY}, so that each fork writes
+ * its own files, such as <code>instrumentation-1.json</code>, instead of overwriting the ones of the other forks.
+ * <p>
+ * After every command click and ajax update, the size in bytes of the view state of every form in the page is recorded as
+ * well, as operation <code>viewState:formId</code> with the size and its growth since the start of the test.
+ * After every full page navigation by a helper, the Navigation Timing of the page is recorded as operation
+ * <code>navigation</code>: the time to first byte, until DOMContentLoaded and until load, and the amount and size of the
+ * loaded resources. The navigations are also written in order per test as <code>timeline.json</code>.
+ * <pre>
+ * &#64;Rule
+ * public InstrumentationRule instrumentation = new InstrumentationRule();
+ * </pre>
+ *
+ * @author Bauke Scholtz
+ * @see Rule
+ */
+public class InstrumentationRule extends TestWatcher {
+
+	private static final Path DEFAULT_DIRECTORY = Paths.get("target", "arquillian-primefaces");
+	private static final String ALL_TESTS = "*";
+	private static final Map<Path, List<Test>> RECORDED_TESTS = new LinkedHashMap<>();
+	private static boolean shutdownHookAdded;
+
+	private final Path directory;
+
+	/**
+	 * Writes the report in <code>target/arquillian-primefaces</code>.
+	 */
+	public InstrumentationRule() {
+		this(DEFAULT_DIRECTORY);
+	}
+
+	/**
+	 * Writes the report in the given directory.
+	 * @param directory The directory to write the report in.
+	 */
+	public InstrumentationRule(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	protected void starting(Description description) {
+		Instrumentation.start(description.getClassName() + "#" + description.getMethodName());
+	}
+
+	@Override
+	protected void finished(Description description) {
+		Test test = Instrumentation.stop();
+
+		if (test != null) {
+			synchronized (RECORDED_TESTS) {
+				if (!shutdownHookAdded) {
+					Runtime.getRuntime().addShutdownHook(new Thread(InstrumentationRule::writeReports));
+					shutdownHookAdded = true;
+				}
+
+				RECORDED_TESTS.computeIfAbsent(directory.toAbsolutePath(), k -> new ArrayList<>()).add(test);
+			}
+		}
+	}
+
+	/**
+	 * Write the reports of all tests recorded so far per directory and forget the tests. This is invoked once when the JVM
+	 * exits, because every report covers all tests and rewriting it after every test would take quadratic time. A failure
+	 * is printed to the standard error, as the logging may already be shut down by then.
+	 */
+	static void writeReports() {
+		Long fork = Entropy.getFork();
+
+		synchronized (RECORDED_TESTS) {
+			for (Entry<Path, List<Test>> recordedTests : RECORDED_TESTS.entrySet()) {
+				try {
+					writeReport(recordedTests.getKey(), getName("instrumentation", fork), recordedTests.getValue());
+					writeTimeline(recordedTests.getKey(), getName("timeline", fork), recordedTests.getValue());
+				}
+				catch (RuntimeException e) {
+					System.err.println("Cannot write instrumentation report in " + recordedTests.getKey());
+					e.printStackTrace();
+				}
+			}
+
+			RECORDED_TESTS.clear();
+		}
+	}
+
+	/**
+	 * Returns the given base name with the given fork number, if any.
+	 */
+	static String getName(String name, Long fork) {
+		return fork != null ? name + "-" + fork : name;
+	}
+
+
+	// Aggregation ------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the values per test per operation per metric, including the values over all tests as a test named "*".
+	 */
+	private static Map<String, Map<String, Map<String, List<Double>>>> aggregate(List<Test> tests) {
+		Map<String, Map<String, Map<String, List<Double>>>> aggregate = new LinkedHashMap<>();
+
+		for (Test test : tests) {
+			for (Sample sample : test.getSamples()) {
+				for (Entry<String, Number> value : sample.getValues().entrySet()) {
+					add(aggregate, test.getName(), sample.getOperation(), value.getKey(), value.getValue().doubleValue());
+					add(aggregate, ALL_TESTS, sample.getOperation(), value.getKey(), value.getValue().doubleValue());
+				}
+			}
+		}
+
+		return aggregate;
+	}
+
+	private static void add(Map<String, Map<String, Map<String, List<Double>>>> aggregate, String test, String operation, String metric, double value) {
+		aggregate.computeIfAbsent(test, k -> new LinkedHashMap<>())
+			.computeIfAbsent(operation, k -> new LinkedHashMap<>())
+			.computeIfAbsent(metric, k -> new ArrayList<>())
+			.add(value);
+	}
+
+	/**
+	 * Returns the given percentile of the given values using the nearest-rank method.
+	 */
+	private static double percentile(List<Double> sortedValues, int percentile) {
+		int rank = (int) Math.ceil(percentile / 100.0 * sortedValues.size());
+		return sortedValues.get(Math.max(rank, 1) - 1);
+	}
+
+
+	// Report -----------------------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Write the report of the given tests as JSON and CSV files with the given base name in the given directory.
+	 */
+	static void writeReport(Path directory, String name, List<Test> recordedTests) {
+		Map<String, Map<String, Map<String, List<Double>>>> aggregate = aggregate(recordedTests);
+
+		try {
+			Files.createDirectories(directory);
+
+			try (Writer json = Files.newBufferedWriter(directory.resolve(name + ".json"), UTF_8);
+				Writer csv = Files.newBufferedWriter(directory.resolve(name + ".csv"), UTF_8))
+			{
+				csv.write("test,operation,metric,count,p50,p95,max\n");
+				json.write("{");
+
+				for (Iterator<Entry<String, Map<String, Map<String, List<Double>>>>> tests = aggregate.entrySet().iterator(); tests.hasNext();) {
+					Entry<String, Map<String, Map<String, List<Double>>>> test = tests.next();
+					json.write("\n\t" + quote(test.getKey()) + ": {");
+
+					for (Iterator<Entry<String, Map<String, List<Double>>>> operations = test.getValue().entrySet().iterator(); operations.hasNext();) {
+						Entry<String, Map<String, List<Double>>> operation = operations.next();
+						json.write("\n\t\t" + quote(operation.getKey()) + ": {");
+
+						for (Iterator<Entry<String, List<Double>>> metrics = operation.getValue().entrySet().iterator(); metrics.hasNext();) {
+							Entry<String, List<Double>> metric = metrics.next();
+							List<Double> values = new ArrayList<>(metric.getValue());
+							values.sort(null);
+							String count = String.valueOf(values.size());
+							String p50 = format(percentile(values, 50));
+							String p95 = format(percentile(values, 95));
+							String max = format(values.get(values.size() - 1));
+
+							json.write("\n\t\t\t" + quote(metric.getKey()) + ": { \"count\": " + count + ", \"p50\": " + p50 + ", \"p95\": " + p95 + ", \"max\": " + max + " }" + (metrics.hasNext() ? "," : ""));
+							csv.write(String.join(",", csv(test.getKey()), csv(operation.getKey()), csv(metric.getKey()), count, p50, p95, max) + "\n");
+						}
+
+						json.write("\n\t\t}" + (operations.hasNext() ? "," : ""));
+					}
+
+					json.write("\n\t}" + (tests.hasNext() ? "," : ""));
+				}
+
+				json.write("\n}\n");
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Write the navigations of the given tests in the order they happened as a JSON file with the given base name in the
+	 * given directory. Tests without navigations are skipped.
+	 */
+	static void writeTimeline(Path directory, String name, List<Test> recordedTests) {
+		try {
+			Files.createDirectories(directory);
+
+			try (Writer json = Files.newBufferedWriter(directory.resolve(name + ".json"), UTF_8)) {
+				json.write("{");
+				String testSeparator = "";
+
+				for (Test test : recordedTests) {
+					if (test.getTimeline().isEmpty()) {
+						continue;
+					}
+
+					json.write(testSeparator + "\n\t" + quote(test.getName()) + ": [");
+					testSeparator = ",";
+
+					for (Iterator<Sample> navigations = test.getTimeline().iterator(); navigations.hasNext();) {
+						Sample navigation = navigations.next();
+						json.write("\n\t\t{ \"url\": " + quote(navigation.getOperation()));
+
+						for (Entry<String, Number> value : navigation.getValues().entrySet()) {
+							json.write(", " + quote(value.getKey()) + ": " + format(value.getValue().doubleValue()));
+						}
+
+						json.write(" }" + (navigations.hasNext() ? "," : ""));
+					}
+
+					json.write("\n\t]");
+				}
+
+				json.write("\n}\n");
+			}
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	private static String quote(String string) {
+		StringBuilder builder = new StringBuilder(string.length() + 2).append('"');
+
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+
+			if (c == '"' || c == '\\') {
+				builder.append('\\').append(c);
+			}
+			else if (c < ' ') {
+				builder.append(String.format("\\u%04x", (int) c));
+			}
+			else {
+				builder.append(c);
+			}
+		}
+
+		return builder.append('"').toString();
+	}
+
+	private static String csv(String string) {
+		return string.contains(",") || string.contains("\"") || string.contains("\r") || string.contains("\n") ? "\"" + string.replace("\"", "\"\"") + "\"" : string;
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.newSetFromMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.jboss.arquillian.drone.webdriver.htmlunit.DroneHtmlUnitDriver;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.Cache;
+import com.gargoylesoftware.htmlunit.HttpMethod;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebConnection;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+import com.gargoylesoftware.htmlunit.util.WebConnectionWrapper;
+
+/**
+ * HtmlUnit browser tuned for the helpers of {@link ArquillianPrimeFaces}, which skips the resources the helpers don't
+ * need and reuses the resources they do need.
+ * <ul>
+ * <li>Images and fonts, such as the theme icons, are never downloaded, they're answered with an empty response.</li>
+ * <li>Static JSF resources, such as the PrimeFaces scripts and stylesheets, are downloaded only once as long as at
+ * least one instance is open, and kept in memory by their URL.</li>
+ * <li>The scripts compiled and the stylesheets parsed from them are shared by all page loads of all open instances, so
+ * the PrimeFaces core scripts are compiled only once, also when the instances run in parallel threads.</li>
+ * </ul>
+ * This assumes that the static JSF resources don't change during the test run. The dynamic resources of PrimeFaces,
+ * such as <code>&lt;p:graphicImage&gt;</code> and <code>&lt;p:fileDownload&gt;</code> content, are not cached, nor are
+ * any other resources. The cache is released when the last open instance quits. Use {@link #clearCache()} to start
+ * over before that. Clearing the cache of the web client of a single instance has no effect, as that would also clear it
+ * under the other instances.
+ * <p>
+ * With Drone, select it in <code>arquillian.xml</code>:
+ * <pre>
+ * &lt;extension qualifier="webdriver"&gt;
+ *     &lt;property name="browser"&gt;leanhtmlunit&lt;/property&gt;
+ * &lt;/extension&gt;
+ * </pre>
+ * It is also the default browser of the {@link BrowserPool}.
+ *
+ * @author Bauke Scholtz
+ */
+public class LeanHtmlUnitDriver extends DroneHtmlUnitDriver {
+
+	private static final String RESOURCE_PATH = "/javax.faces.resource/";
+	private static final Pattern DYNAMIC_RESOURCE = Pattern.compile("dynamiccontent|pfdrid=");
+	private static final Pattern SKIPPED_RESOURCE = Pattern.compile(
+		".*\\.(png|gif|jpe?g|svg|ico|bmp|webp|cur|woff2?|ttf|otf|eot)(\\.[a-z]+)?");
+
+	private static final Set<String> DECODED_HEADERS = new HashSet<>(asList("content-encoding", "content-length"));
+
+	private static final SharedCache SHARED_CACHE = new SharedCache();
+
+	private WebClient openClient; // Not initialized, as it's assigned during the super constructor.
+
+	/**
+	 * Create a lean HtmlUnit browser emulating the best supported browser version, with JavaScript enabled.
+	 */
+	public LeanHtmlUnitDriver() {
+		this(getDefaultCapabilities());
+	}
+
+	/**
+	 * Create a lean HtmlUnit browser with the given capabilities. This is the constructor used by Drone.
+	 * @param capabilities The capabilities, such as the browser version and whether JavaScript is enabled.
+	 */
+	public LeanHtmlUnitDriver(Capabilities capabilities) {
+		super(capabilities);
+	}
+
+	/**
+	 * Removes the cached static JSF resources, compiled scripts and parsed stylesheets of all instances.
+	 */
+	public static void clearCache() {
+		SHARED_CACHE.clearShared();
+	}
+
+	@Override
+	public WebClient modifyWebClient(WebClient client) {
+		WebClient webClient = super.modifyWebClient(client);
+		webClient.getOptions().setDownloadImages(false);
+		webClient.setCache(SHARED_CACHE.open(webClient));
+		webClient.setWebConnection(new LeanWebConnection(webClient.getWebConnection()));
+		SHARED_CACHE.close(openClient); // In case the previous one is replaced, e.g. by setJavascriptEnabled().
+		openClient = webClient;
+		return webClient;
+	}
+
+	@Override
+	public void quit() {
+		try {
+			super.quit();
+		}
+		finally {
+			SHARED_CACHE.close(openClient);
+			openClient = null;
+		}
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	private static Capabilities getDefaultCapabilities() {
+		DesiredCapabilities capabilities = DesiredCapabilities.htmlUnit();
+		capabilities.setVersion(BrowserVersion.BEST_SUPPORTED.getNickname());
+		capabilities.setJavascriptEnabled(true);
+		return capabilities;
+	}
+
+	static Cache getSharedCache() {
+		return SHARED_CACHE;
+	}
+
+	static boolean isStaticResource(WebRequest request) {
+		String url = request.getUrl().toString();
+		return request.getHttpMethod() == HttpMethod.GET && url.contains(RESOURCE_PATH) && !DYNAMIC_RESOURCE.matcher(url).find();
+	}
+
+	static boolean isSkippedResource(WebRequest request) {
+		String accept = request.getAdditionalHeaders().get("Accept");
+		return (accept != null && accept.startsWith("image/"))
+			|| SKIPPED_RESOURCE.matcher(request.getUrl().getPath().toLowerCase(Locale.ROOT)).matches();
+	}
+
+	// Nested classes -------------------------------------------------------------------------------------------------
+
+	/**
+	 * Answers images and fonts with an empty response, and reads the static JSF resources fully and decoded into
+	 * memory, so that they can be shared by all instances.
+	 */
+	@SuppressWarnings("try") // It's closed by WebClient#close(), not in a try-with-resources, so its close() may throw anything.
+	private static final class LeanWebConnection extends WebConnectionWrapper {
+
+		LeanWebConnection(WebConnection webConnection) {
+			super(webConnection);
+		}
+
+		@Override
+		public WebResponse getResponse(WebRequest request) throws IOException {
+			if (isSkippedResource(request)) {
+				return new WebResponse(new WebResponseData(new byte[0], HTTP_NO_CONTENT, "No Content", emptyList()), request, 0);
+			}
+
+			WebResponse response = super.getResponse(request);
+
+			if (!isStaticResource(request) || response.getStatusCode() != HTTP_OK) {
+				return response;
+			}
+
+			try (InputStream content = response.getContentAsStream()) {
+				byte[] body = IOUtils.toByteArray(content);
+				List<NameValuePair> headers = new ArrayList<>();
+
+				for (NameValuePair header : response.getResponseHeaders()) {
+					if (!DECODED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+						headers.add(header);
+					}
+				}
+
+				return new WebResponse(new WebResponseData(body, response.getStatusCode(), response.getStatusMessage(),
+					headers), request, response.getLoadTime());
+			}
+			finally {
+				response.cleanUp();
+			}
+		}
+	}
+
+	/**
+	 * Caches the static JSF resources regardless of their caching headers, and shares them, along with the scripts
+	 * compiled and the stylesheets parsed from them, between all open instances, also across threads. This is safe
+	 * because HtmlUnit itself guards the entries with a synchronized map and evicts the least recently used entries
+	 * beyond the maximum size; because the cached responses are fully read into memory by {@link LeanWebConnection}, so
+	 * evicting one doesn't clean up its content under another instance still using it; and because the compiled scripts
+	 * don't hold any page state, they're executed in the scope of the page, which is also how HtmlUnit itself shares them
+	 * between all pages of a single client. Other responses are not cached, as their content may be backed by a
+	 * temporary file which is deleted on eviction. The entries are released when the last open instance quits. The open
+	 * instances are tracked by their web client, so that clearing the cache via a web client, such as by
+	 * WebClient#close(), doesn't release it under the other instances.
+	 */
+	private static final class SharedCache extends Cache {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient Set<WebClient> openClients = newSetFromMap(new IdentityHashMap<>());
+
+		synchronized SharedCache open(WebClient client) {
+			openClients.add(client);
+			return this;
+		}
+
+		synchronized void close(WebClient client) {
+			if (client != null && openClients.remove(client) && openClients.isEmpty()) {
+				super.clear();
+			}
+		}
+
+		@Override
+		protected boolean isCacheableContent(WebResponse response) {
+			return response.getStatusCode() == HTTP_OK && isStaticResource(response.getWebRequest());
+		}
+
+		@Override
+		public void clear() {
+			// NOOP, as it's shared, see close() and clearShared().
+		}
+
+		synchronized void clearShared() {
+			super.clear();
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.util.Map;
+
+import org.jboss.arquillian.core.spi.LoadableExtension;
+import org.jboss.arquillian.drone.spi.Destructor;
+import org.jboss.arquillian.drone.spi.Instantiator;
+import org.jboss.arquillian.drone.webdriver.configuration.WebDriverConfiguration;
+import org.jboss.arquillian.drone.webdriver.factory.HtmlUnitDriverFactory;
+import org.jboss.arquillian.drone.webdriver.spi.BrowserCapabilities;
+import org.openqa.selenium.remote.DesiredCapabilities;
+
+/**
+ * Arquillian extension which makes the {@link LeanHtmlUnitDriver} available to Drone as browser
+ * <code>leanhtmlunit</code>. The extension is registered automatically, it's only used when configured in
+ * <code>arquillian.xml</code>:
+ * <pre>
+ * &lt;extension qualifier="webdriver"&gt;
+ *     &lt;property name="browser"&gt;leanhtmlunit&lt;/property&gt;
+ * &lt;/extension&gt;
+ * </pre>
+ * The other <code>webdriver</code> properties of HtmlUnit, such as <code>htmlUnitWebClientOptions</code>, apply too.
+ *
+ * @author Bauke Scholtz
+ */
+public class LeanHtmlUnitExtension implements LoadableExtension {
+
+	static final String BROWSER = "leanhtmlunit";
+
+	@Override
+	public void register(ExtensionBuilder builder) {
+		builder.service(BrowserCapabilities.class, Capabilities.class);
+		builder.service(Instantiator.class, Factory.class);
+		builder.service(Destructor.class, Factory.class);
+	}
+
+	/**
+	 * The capabilities of the <code>leanhtmlunit</code> browser, which are those of HtmlUnit.
+	 */
+	public static class Capabilities implements BrowserCapabilities {
+
+		@Override
+		public String getImplementationClassName() {
+			return LeanHtmlUnitDriver.class.getName();
+		}
+
+		@Override
+		public Map<String, ?> getRawCapabilities() {
+			return DesiredCapabilities.htmlUnit().asMap();
+		}
+
+		@Override
+		public String getReadableName() {
+			return BROWSER;
+		}
+
+		@Override
+		public int getPrecedence() {
+			return 0;
+		}
+	}
+
+	/**
+	 * Creates and destroys the <code>leanhtmlunit</code> browser the same way as Drone does with HtmlUnit.
+	 */
+	public static class Factory implements Instantiator<LeanHtmlUnitDriver, WebDriverConfiguration>, Destructor<LeanHtmlUnitDriver> {
+
+		private final HtmlUnitDriverFactory delegate = new HtmlUnitDriverFactory();
+
+		@Override
+		public LeanHtmlUnitDriver createInstance(WebDriverConfiguration configuration) {
+			return (LeanHtmlUnitDriver) delegate.createInstance(configuration); // Instantiates the implementation class of the capabilities.
+		}
+
+		@Override
+		public void destroyInstance(LeanHtmlUnitDriver instance) {
+			instance.quit();
+		}
+
+		@Override
+		public int getPrecedence() {
+			return 0;
+		}
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The PrimeFaces environment of the current page as probed by {@link ArquillianPrimeFaces#getEnvironment()}.
+ *
+ * @author Bauke Scholtz
+ */
+public final class PrimeFacesEnvironment {
+
+	private final char separatorChar;
+	private final String primeFacesVersion;
+	private final String jQueryVersion;
+	private final Map<String, String> widgetVars;
+
+	@SuppressWarnings("unchecked")
+	PrimeFacesEnvironment(Map<String, Object> environment) {
+		separatorChar = Objects.toString(environment.get("separator"), ":").charAt(0);
+		primeFacesVersion = Objects.toString(environment.get("primeFacesVersion"), null);
+		jQueryVersion = Objects.toString(environment.get("jQueryVersion"), null);
+		widgetVars = unmodifiableMap(new LinkedHashMap<>((Map<String, String>) environment.get("widgets")));
+	}
+
+	/**
+	 * Returns the naming container separator character, usually <code>:</code>.
+	 * @return The naming container separator character.
+	 */
+	public char getSeparatorChar() {
+		return separatorChar;
+	}
+
+	/**
+	 * Returns the PrimeFaces version, or <code>null</code> if it's unknown. PrimeFaces only exposes it since 6.2.
+	 * @return The PrimeFaces version.
+	 */
+	public String getPrimeFacesVersion() {
+		return primeFacesVersion;
+	}
+
+	/**
+	 * Returns the jQuery version, or <code>null</code> if jQuery isn't loaded.
+	 * @return The jQuery version.
+	 */
+	public String getJQueryVersion() {
+		return jQueryVersion;
+	}
+
+	/**
+	 * Returns the widgetVars of all PrimeFaces widgets in the page, keyed by client ID.
+	 * @return The widgetVars of all PrimeFaces widgets in the page, keyed by client ID.
+	 */
+	public Map<String, String> getWidgetVars() {
+		return widgetVars;
+	}
+
+	/**
+	 * Returns the widgetVar of the PrimeFaces widget associated with the given client ID, or <code>null</code> if there is none.
+	 * @param clientId The client ID of the PrimeFaces component.
+	 * @return The widgetVar of the PrimeFaces widget associated with the given client ID.
+	 */
+	public String getWidgetVar(String clientId) {
+		return widgetVars.get(clientId);
+	}
+
+	@Override
+	public String toString() {
+		return "PrimeFacesEnvironment[separatorChar=" + separatorChar + ", primeFacesVersion=" + primeFacesVersion
+			+ ", jQueryVersion=" + jQueryVersion + ", widgetVars=" + widgetVars + "]";
+	}
+
+}
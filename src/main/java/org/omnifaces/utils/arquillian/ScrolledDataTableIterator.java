@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.omnifaces.utils.arquillian.DataTable.Row;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Iterates over the rows of a live scroll or virtual scroll p:dataTable in batches, keeping only the rows which haven't
+ * been returned yet in memory. Use {@link ArquillianPrimeFaces#iterateScrolledDataTableRows(WebElement, int)} to obtain
+ * an instance. The iteration also ends when several chunks in a row yield no rows although a request was fired for them,
+ * which is the case when the rendered rows stop short of the scroll limit of a virtual scroll table, e.g. because the
+ * row count of a lazy model is too high.
+ *
+ * @author Bauke Scholtz
+ */
+final class ScrolledDataTableIterator implements Iterator<List<Row>> {
+
+	private static final int MAX_EMPTY_CHUNKS = 3; // A single empty chunk is normal when a virtual scroll table switches chunks.
+
+	private final WebElement dataTable;
+	private final int batchSize;
+	private final Deque<Row> rows = new ArrayDeque<>();
+	private int offset;
+	private int emptyChunks;
+	private boolean exhausted;
+
+	ScrolledDataTableIterator(WebElement dataTable, int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1, but is " + batchSize);
+		}
+
+		this.dataTable = dataTable;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!exhausted && rows.size() < batchSize) {
+			List<Row> chunk = ArquillianPrimeFaces.scrollDataTable(dataTable, offset);
+
+			if (chunk == null) {
+				exhausted = true;
+			}
+			else if (chunk.isEmpty()) {
+				exhausted = ++emptyChunks >= MAX_EMPTY_CHUNKS;
+			}
+			else {
+				rows.addAll(chunk);
+				offset += chunk.size();
+				emptyChunks = 0;
+			}
+		}
+
+		return !rows.isEmpty();
+	}
+
+	@Override
+	public List<Row> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		List<Row> batch = new ArrayList<>(Math.min(batchSize, rows.size()));
+
+		while (batch.size() < batchSize && !rows.isEmpty()) {
+			batch.add(rows.poll());
+		}
+
+		return unmodifiableList(batch);
+	}
+
+}
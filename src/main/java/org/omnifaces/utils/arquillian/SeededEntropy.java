@@ -0,0 +1,403 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * The generators of {@link Entropy} as an instance backed by a {@link SplittableRandom} with a known seed, so that the
+ * generated values can be reproduced by creating an instance with the same seed. An instance is not thread safe, give
+ * each worker thread its own instance by {@link #split()}, in the thread which created the instance, so that the split
+ * instances are reproducible as well. The {@link EntropyRule} creates an instance per test and logs its seed.
+ * <pre>
+ * SeededEntropy entropy = new SeededEntropy(42);
+ * SeededEntropy worker = entropy.split();
+ * executor.submit(() -&gt; worker.run(() -&gt; Entropy.getRandomString()));
+ * </pre>
+ *
+ * @author Bauke Scholtz
+ * @see Entropy
+ * @see EntropyRule
+ */
+public final class SeededEntropy {
+
+	static final char[] LETTERS_AND_DIGITS = IntStream
+		.range(Character.MIN_VALUE, Byte.MAX_VALUE)
+		.filter(Character::isLetterOrDigit)
+		.collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+		.toString()
+		.toCharArray();
+
+	private static final int MAX_NUMBER_LENGTH = 18;
+	private static final long[] POWERS_OF_TEN = LongStream
+		.iterate(1, power -> power * 10)
+		.limit(MAX_NUMBER_LENGTH + 1)
+		.toArray();
+	private static final BigInteger MAX_CHUNK = BigInteger.valueOf(POWERS_OF_TEN[MAX_NUMBER_LENGTH]);
+
+	private final long seed;
+	private final SplittableRandom random;
+
+	/**
+	 * Create an instance whose generated values are fully determined by the given seed.
+	 * @param seed The seed.
+	 */
+	public SeededEntropy(long seed) {
+		this.seed = seed;
+		random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Returns the seed of this instance. Creating a new instance with this seed reproduces the values generated by this
+	 * instance, provided that the same generators are invoked in the same order.
+	 * @return The seed of this instance.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns a new instance whose seed is the next random long of this instance. The new instance is independent of
+	 * this instance, so it can be used by another thread without contention.
+	 * @return A new instance for use by another thread.
+	 */
+	public SeededEntropy split() {
+		return new SeededEntropy(random.nextLong());
+	}
+
+	/**
+	 * Run the given task with this instance bound to the current thread, so that the static methods of {@link Entropy}
+	 * use this instance during the task.
+	 * @param task The task to run.
+	 */
+	public void run(Runnable task) {
+		SeededEntropy previous = Entropy.bind(this);
+
+		try {
+			task.run();
+		}
+		finally {
+			Entropy.bind(previous);
+		}
+	}
+
+	/**
+	 * Returns random string in the format of a version 4 {@link UUID}.
+	 * @return Random string.
+	 */
+	public String getRandomString() {
+		long mostSignificantBits = random.nextLong() & ~0xF000L | 0x4000L;
+		long leastSignificantBits = random.nextLong() & ~0xC000000000000000L | 0x8000000000000000L;
+		return new UUID(mostSignificantBits, leastSignificantBits).toString();
+	}
+
+	/**
+	 * Returns random string of fixed length.
+	 * @param length The desired amount of characters.
+	 * @return Random string of fixed length.
+	 */
+	public String getRandomStringOfFixedLength(int length) {
+		return getRandomStringOfFixedLength(length, LETTERS_AND_DIGITS);
+	}
+
+	/**
+	 * Returns random string of fixed length consisting of characters of given alphabet.
+	 * @param length The desired amount of characters.
+	 * @param alphabet The characters to choose from.
+	 * @return Random string of fixed length consisting of characters of given alphabet.
+	 * @throws IllegalArgumentException When the alphabet is empty.
+	 */
+	public String getRandomStringOfFixedLength(int length, char... alphabet) {
+		return new String(fillRandomCharacters(new char[length], checkAlphabet(alphabet)));
+	}
+
+	/**
+	 * Returns given amount of random strings of fixed length.
+	 * @param count The desired amount of strings.
+	 * @param length The desired amount of characters per string.
+	 * @return Given amount of random strings of fixed length.
+	 */
+	public List<String> getRandomStringsOfFixedLength(int count, int length) {
+		return getRandomStringsOfFixedLength(count, length, LETTERS_AND_DIGITS);
+	}
+
+	/**
+	 * Returns given amount of random strings of fixed length consisting of characters of given alphabet. This reuses a
+	 * single character buffer for all strings, so it's much cheaper than invoking
+	 * {@link #getRandomStringOfFixedLength(int, char...)} in a loop.
+	 * @param count The desired amount of strings.
+	 * @param length The desired amount of characters per string.
+	 * @param alphabet The characters to choose from.
+	 * @return Given amount of random strings of fixed length consisting of characters of given alphabet.
+	 * @throws IllegalArgumentException When the alphabet is empty.
+	 */
+	public List<String> getRandomStringsOfFixedLength(int count, int length, char... alphabet) {
+		checkAlphabet(alphabet);
+		char[] buffer = new char[length];
+		String[] strings = new String[count];
+
+		for (int i = 0; i < count; i++) {
+			strings[i] = new String(fillRandomCharacters(buffer, alphabet));
+		}
+
+		return Arrays.asList(strings);
+	}
+
+	/**
+	 * Appends random characters of given alphabet to given string builder. This is useful to compose a larger string,
+	 * such as a line of a data file, without creating intermediate strings.
+	 * @param builder The string builder to append to.
+	 * @param length The desired amount of characters.
+	 * @param alphabet The characters to choose from.
+	 * @return The given string builder.
+	 * @throws IllegalArgumentException When the alphabet is empty.
+	 */
+	public StringBuilder appendRandomStringOfFixedLength(StringBuilder builder, int length, char... alphabet) {
+		checkAlphabet(alphabet);
+		builder.ensureCapacity(builder.length() + length);
+
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet[random.nextInt(alphabet.length)]);
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Returns random number between given values, inclusive.
+	 * @param min The minimum value.
+	 * @param max The maximum value, inclusive.
+	 * @return Random number between given values, inclusive.
+	 */
+	public int getRandomNumberBetween(int min, int max) {
+		return random.nextInt(min, max + 1);
+	}
+
+	/**
+	 * Returns random number of fixed length. The length is at most 18, as not all numbers of 19 digits fit in a
+	 * <code>long</code>. Since version 0.4 a longer length throws {@link IllegalArgumentException}, formerly a length of
+	 * 19 returned a negative number in about 1 of 12 invocations and a longer length threw
+	 * {@link NumberFormatException}. Use {@link #getRandomBigIntegerOfFixedLength(int)} or
+	 * {@link #getRandomDigitsOfFixedLength(int)} for longer numbers.
+	 * @param length The desired amount of digits, at most 18.
+	 * @return Random number of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1 or more than 18.
+	 */
+	public long getRandomNumberOfFixedLength(int length) {
+		return nextNumberOfFixedLength(checkNumberLength(length));
+	}
+
+	/**
+	 * Returns given amount of random numbers of fixed length. The length is at most 18, see
+	 * {@link #getRandomNumberOfFixedLength(int)}.
+	 * @param count The desired amount of numbers.
+	 * @param length The desired amount of digits per number, at most 18.
+	 * @return Given amount of random numbers of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1 or more than 18.
+	 */
+	public long[] getRandomNumbersOfFixedLength(int count, int length) {
+		checkNumberLength(length);
+		long[] numbers = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			numbers[i] = nextNumberOfFixedLength(length);
+		}
+
+		return numbers;
+	}
+
+	/**
+	 * Returns random number of fixed length, which may be longer than a <code>long</code> can hold.
+	 * @param length The desired amount of digits.
+	 * @return Random number of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1.
+	 */
+	public BigInteger getRandomBigIntegerOfFixedLength(int length) {
+		int firstChunkLength = getFirstChunkLength(checkDigitsLength(length));
+		BigInteger number = BigInteger.valueOf(nextNumberOfFixedLength(firstChunkLength));
+
+		for (int remaining = length - firstChunkLength; remaining > 0; remaining -= MAX_NUMBER_LENGTH) {
+			number = number.multiply(MAX_CHUNK).add(BigInteger.valueOf(random.nextLong(MAX_CHUNK.longValue())));
+		}
+
+		return number;
+	}
+
+	/**
+	 * Returns random digits of fixed length, without leading zero, such as an account number. The length is not
+	 * limited.
+	 * @param length The desired amount of digits.
+	 * @return Random digits of fixed length.
+	 * @throws IllegalArgumentException When the length is less than 1.
+	 */
+	public String getRandomDigitsOfFixedLength(int length) {
+		return new String(fillRandomDigits(new char[checkDigitsLength(length)], length));
+	}
+
+	/**
+	 * Appends random digits of fixed length, without leading zero, to given string builder. This is useful to compose a
+	 * larger string, such as a line of a data file, without creating intermediate strings.
+	 * @param builder The string builder to append to.
+	 * @param length The desired amount of digits.
+	 * @return The given string builder.
+	 * @throws IllegalArgumentException When the length is less than 1.
+	 */
+	public StringBuilder appendRandomDigitsOfFixedLength(StringBuilder builder, int length) {
+		char[] buffer = new char[Math.min(checkDigitsLength(length), MAX_NUMBER_LENGTH)];
+		int firstChunkLength = getFirstChunkLength(length);
+		builder.ensureCapacity(builder.length() + length);
+		builder.append(fillRandomDigits(buffer, firstChunkLength), 0, firstChunkLength);
+
+		for (int remaining = length - firstChunkLength; remaining > 0; remaining -= MAX_NUMBER_LENGTH) {
+			writeDigits(buffer, 0, MAX_NUMBER_LENGTH, random.nextLong(POWERS_OF_TEN[MAX_NUMBER_LENGTH]));
+			builder.append(buffer, 0, MAX_NUMBER_LENGTH);
+		}
+
+		return builder;
+	}
+
+	/**
+	 * Returns random item from given list.
+	 * @param list List to get random item from.
+	 * @return Random item from given list.
+	 * @param <E> Generic list element type.
+	 */
+	public <E> E getRandomListItem(List<E> list) {
+		return list.get(random.nextInt(0, list.size()));
+	}
+
+	/**
+	 * Returns random value from given enum.
+	 * @param enumType Enum type to get random value from.
+	 * @return Random value from given enum.
+	 * @param <E> Generic enum type.
+	 */
+	public <E extends Enum<E>> E getRandomEnumValue(Class<E> enumType) {
+		E[] values = enumType.getEnumConstants();
+		return values[random.nextInt(0, values.length)];
+	}
+
+	/**
+	 * Returns random local date between given years, inclusive.
+	 * @param minYear The minimum year.
+	 * @param maxYear The maximum year, inclusive.
+	 * @return Random local date between given years, inclusive.
+	 */
+	public LocalDate getRandomLocalDateBetweenYears(int minYear, int maxYear) {
+		LocalDate minDate = LocalDate.of(minYear, Month.JANUARY, 1);
+		LocalDate maxDate = LocalDate.of(maxYear, Month.DECEMBER, Month.DECEMBER.maxLength());
+		return LocalDate.ofEpochDay(random.nextLong(minDate.toEpochDay(), maxDate.toEpochDay()));
+	}
+
+	/**
+	 * Returns random local date representing date of birth between given ages, inclusive.
+	 * @param minAge The minimum age.
+	 * @param maxAge The maximum age, inclusive.
+	 * @return Random local date representing date of birth between given ages, inclusive.
+	 */
+	public LocalDate getRandomDateOfBirthBetweenAges(int minAge, int maxAge) {
+		LocalDate now = LocalDate.now();
+		int year = getRandomNumberBetween(now.minusYears(maxAge - 1).getYear(), now.minusYears(minAge + 1).getYear());
+		Month month = getRandomEnumValue(Month.class);
+		int day = getRandomNumberBetween(1, YearMonth.of(year, month).lengthOfMonth());
+		return LocalDate.of(year, month, day);
+	}
+
+	@Override
+	public String toString() {
+		return "SeededEntropy[seed=" + seed + "]";
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	private static char[] checkAlphabet(char[] alphabet) {
+		if (alphabet.length == 0) {
+			throw new IllegalArgumentException("Alphabet may not be empty");
+		}
+
+		return alphabet;
+	}
+
+	private static int checkNumberLength(int length) {
+		if (checkDigitsLength(length) > MAX_NUMBER_LENGTH) {
+			throw new IllegalArgumentException("Length must be at most " + MAX_NUMBER_LENGTH + ", but is " + length
+				+ ", use getRandomBigIntegerOfFixedLength() or getRandomDigitsOfFixedLength() instead");
+		}
+
+		return length;
+	}
+
+	private static int checkDigitsLength(int length) {
+		if (length < 1) {
+			throw new IllegalArgumentException("Length must be at least 1, but is " + length);
+		}
+
+		return length;
+	}
+
+	/**
+	 * The digits are generated in chunks of 18 digits, the first chunk holds the remainder.
+	 */
+	private static int getFirstChunkLength(int length) {
+		return (length - 1) % MAX_NUMBER_LENGTH + 1;
+	}
+
+	/**
+	 * Returns a number of the given length without leading zero, as a uniform value in [10^(length-1), 10^length).
+	 */
+	private long nextNumberOfFixedLength(int length) {
+		long min = POWERS_OF_TEN[length - 1];
+		return min + random.nextLong(min * 9);
+	}
+
+	private char[] fillRandomDigits(char[] buffer, int length) {
+		int firstChunkLength = getFirstChunkLength(length);
+		writeDigits(buffer, 0, firstChunkLength, nextNumberOfFixedLength(firstChunkLength));
+
+		for (int position = firstChunkLength; position < length; position += MAX_NUMBER_LENGTH) {
+			writeDigits(buffer, position, MAX_NUMBER_LENGTH, random.nextLong(POWERS_OF_TEN[MAX_NUMBER_LENGTH]));
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * Writes the given value as the given amount of digits, padded with leading zeroes.
+	 */
+	private static void writeDigits(char[] buffer, int offset, int length, long value) {
+		long remainder = value;
+
+		for (int i = offset + length - 1; i >= offset; i--) {
+			buffer[i] = (char) ('0' + remainder % 10);
+			remainder /= 10;
+		}
+	}
+
+	private char[] fillRandomCharacters(char[] buffer, char[] alphabet) {
+		for (int i = 0; i < buffer.length; i++) {
+			buffer[i] = alphabet[random.nextInt(alphabet.length)];
+		}
+
+		return buffer;
+	}
+
+}
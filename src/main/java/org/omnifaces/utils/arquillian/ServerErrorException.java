@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+/**
+ * Thrown by the waiting helpers of {@link ArquillianPrimeFaces} as soon as the server responded with an error, so that
+ * the test fails immediately instead of waiting for the timeout to expire. This covers a JSF partial response with an
+ * error element, a HTTP error status of an ajax request, and a HTTP error status of a page navigation.
+ *
+ * @author Bauke Scholtz
+ */
+public class ServerErrorException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String errorName;
+	private final String errorMessage;
+	private final int status;
+
+	/**
+	 * Constructs the exception.
+	 * @param errorName The error name, e.g. the exception class name in a JSF partial response.
+	 * @param errorMessage The error message.
+	 * @param status The HTTP status code, or 0 if there is no response at all.
+	 */
+	public ServerErrorException(String errorName, String errorMessage, int status) {
+		super("Server error: status=" + status + ", name=" + errorName + ", message=" + errorMessage);
+		this.errorName = errorName;
+		this.errorMessage = errorMessage;
+		this.status = status;
+	}
+
+	/**
+	 * Returns the error name, e.g. the exception class name in a JSF partial response.
+	 * @return The error name.
+	 */
+	public String getErrorName() {
+		return errorName;
+	}
+
+	/**
+	 * Returns the error message.
+	 * @return The error message.
+	 */
+	public String getErrorMessage() {
+		return errorMessage;
+	}
+
+	/**
+	 * Returns the HTTP status code, or 0 if there is no response at all.
+	 * @return The HTTP status code.
+	 */
+	public int getStatus() {
+		return status;
+	}
+
+}
@@ -0,0 +1,1053 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+
+/**
+ * Page side counterpart of ArquillianPrimeFaces. This is installed once per page by ArquillianPrimeFaces#executePageScript()
+ * so that helpers can do their work in a single WebDriver round trip. Keep this ES5 compatible as it must run in HtmlUnit.
+ *
+ * @author Bauke Scholtz
+ */
+window.ArquillianPrimeFaces = window.ArquillianPrimeFaces || (function(window, document, $) {
+
+	// Environment ----------------------------------------------------------------------------------------------------
+
+	var environment;
+
+	/**
+	 * Returns the environment of the current page: the naming container separator character, the PrimeFaces and jQuery
+	 * versions and the client ID to widgetVar index of the PrimeFaces widgets. This is probed only once per page, only the
+	 * widget index is refreshed when widgets have been added since, e.g. by an ajax update.
+	 */
+	function getEnvironment() {
+		if (!environment) {
+			environment = {
+				separator: getSeparator(),
+				primeFacesVersion: window.PrimeFaces && PrimeFaces.VERSION || null,
+				jQueryVersion: $ && $.fn.jquery || null,
+				widgets: {},
+				widgetCount: -1
+			};
+		}
+
+		var widgets = window.PrimeFaces && PrimeFaces.widgets || {};
+		var widgetVars = Object.keys(widgets);
+
+		if (widgetVars.length != environment.widgetCount) {
+			environment.widgets = {};
+			environment.widgetCount = widgetVars.length;
+
+			for (var i = 0; i < widgetVars.length; i++) {
+				var widget = widgets[widgetVars[i]];
+
+				if (widget && widget.id) {
+					environment.widgets[widget.id] = widgetVars[i];
+				}
+			}
+		}
+
+		return environment;
+	}
+
+	function getSeparator() {
+		if (window.jsf && jsf.separatorchar) {
+			return jsf.separatorchar;
+		}
+
+		var viewState = $("input[name='javax.faces.ViewState']").attr("id"); // JSF 2.2+ renders e.g. "j_id1:javax.faces.ViewState:0".
+		var index = viewState ? viewState.indexOf("javax.faces.ViewState") : -1;
+		return index > 0 ? viewState.charAt(index - 1) : ":";
+	}
+
+	/**
+	 * Returns the PrimeFaces widget associated with the given element, or null if there is none.
+	 */
+	function getWidget(element) {
+		var widgetVar = getEnvironment().widgets[element.id];
+		return widgetVar ? PrimeFaces.widgets[widgetVar] : null;
+	}
+
+	function isWidget(widget, type) {
+		return !!(widget && PrimeFaces.widget[type] && widget instanceof PrimeFaces.widget[type]);
+	}
+
+	function hasChangeBehavior(widget, input) {
+		return hasOnchange(input) || !!widget.cfg.change || !!(widget.hasBehavior && widget.hasBehavior("change"));
+	}
+
+
+	// Fast mode ------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The PrimeFaces widget configuration options which represent the duration of an effect.
+	 */
+	var effectDurations = ["effectSpeed", "effectDuration", "hideEffectDuration", "toggleSpeed", "openSpeed", "closeSpeed"];
+
+	var fastMode = false;
+
+	/**
+	 * Turns off all animations in the current page, so that panels and dialogs are usable immediately: the jQuery and
+	 * jQuery UI effects, the effect durations of current and future PrimeFaces widgets, and the CSS transitions and
+	 * animations.
+	 */
+	function enableFastMode() {
+		if (fastMode) {
+			return;
+		}
+
+		fastMode = true;
+
+		if ($ && $.fx) {
+			$.fx.off = true;
+		}
+
+		var style = document.createElement("style");
+		style.id = "arquillian-primefaces-fast-mode";
+		style.appendChild(document.createTextNode("*, *::before, *::after { transition-duration: 0s !important; "
+			+ "transition-delay: 0s !important; animation-duration: 0s !important; animation-delay: 0s !important; }"));
+		(document.head || document.documentElement).appendChild(style);
+
+		if (window.PrimeFaces && PrimeFaces.createWidget) {
+			var createWidget = PrimeFaces.createWidget;
+
+			PrimeFaces.createWidget = function(widgetName, widgetVar) { // Also invoked on refresh of an existing widget.
+				var result = createWidget.apply(this, arguments);
+				disableEffects(PrimeFaces.widgets[widgetVar]);
+				return result;
+			};
+
+			for (var widgetVar in PrimeFaces.widgets) {
+				disableEffects(PrimeFaces.widgets[widgetVar]);
+			}
+		}
+	}
+
+	function disableEffects(widget) {
+		if (widget && widget.cfg) {
+			for (var i = 0; i < effectDurations.length; i++) {
+				if (widget.cfg[effectDurations[i]] !== undefined) {
+					widget.cfg[effectDurations[i]] = 1; // Not 0, as some widgets fall back to their default on a falsy value.
+				}
+			}
+		}
+	}
+
+
+	// Forms ----------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Cache of client ID prefix to its naming container and parent form. As this lives in the window, it's automatically
+	 * discarded on a full page navigation. Entries whose naming container was replaced by an ajax update are re-resolved.
+	 */
+	var namingContainers = {};
+
+	/**
+	 * Returns the naming container of the given element based on its client ID, or null if there is none.
+	 */
+	function getNamingContainer(element) {
+		var clientIdPrefix = getClientIdPrefix(element);
+		return clientIdPrefix ? resolveNamingContainer(clientIdPrefix).namingContainer : null;
+	}
+
+	/**
+	 * Returns the parent form of the given element based on its client ID, or null if there is none.
+	 */
+	function getForm(element) {
+		if (element.nodeName.toLowerCase() == "form") {
+			return element;
+		}
+
+		var clientIdPrefix = getClientIdPrefix(element);
+		return clientIdPrefix ? resolveNamingContainer(clientIdPrefix).form : null;
+	}
+
+	function getClientIdPrefix(element) {
+		var clientId = element.id;
+		var index = clientId ? clientId.lastIndexOf(getEnvironment().separator) : -1;
+		return index > 0 ? clientId.substring(0, index) : null;
+	}
+
+	function resolveNamingContainer(clientIdPrefix) {
+		var cached = namingContainers[clientIdPrefix];
+		var namingContainer = getElementById(clientIdPrefix);
+
+		if (!cached || cached.namingContainer !== namingContainer || (cached.form && !$.contains(document, cached.form))) {
+			cached = namingContainers[clientIdPrefix] = {
+				namingContainer: namingContainer,
+				form: namingContainer ? getForm(namingContainer) : null
+			};
+		}
+
+		return cached;
+	}
+
+	/**
+	 * Returns the view state of the parent form of the given element, or null if there is none.
+	 */
+	function getViewState(element) {
+		var form = getForm(element);
+		var viewState = form && $(form).find("input[name='javax.faces.ViewState']");
+		return viewState && viewState.length ? viewState.val() : null;
+	}
+
+	/**
+	 * Returns the size in bytes of the view state of the parent form of the given element, or -1 if there is none.
+	 */
+	function getViewStateSize(element) {
+		var viewState = getViewState(element);
+		return viewState === null ? -1 : getByteLength(viewState);
+	}
+
+	/**
+	 * Returns the sizes in bytes of the view states of all forms in the current page by form ID. Forms without a view
+	 * state are skipped. This doesn't need jQuery, so that it also works on pages without PrimeFaces.
+	 */
+	function getViewStateSizes() {
+		var sizes = {};
+
+		for (var i = 0; i < document.forms.length; i++) {
+			var form = document.forms[i];
+			var viewState = form.querySelector("input[name='javax.faces.ViewState']");
+
+			if (viewState) {
+				sizes[form.id || form.getAttribute("name") || ("form" + i)] = getByteLength(viewState.value);
+			}
+		}
+
+		return sizes;
+	}
+
+
+	// Fill -----------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The events which are fired after filling a field, in the order a user typing in or selecting and then leaving the
+	 * field would fire them, so that any handler on them runs, e.g. a <p:ajax event="keyup">. Key down and key press are
+	 * not fired, because input masks would interpret them as a typed character.
+	 */
+	var textEvents = ["input", "keyup", "change", "blur"];
+	var selectEvents = ["change"];
+
+	/**
+	 * Fillers per field type. They return the input whose events need to be fired, or null when the field can't be filled
+	 * by script, e.g. because it has a key down handler, so that the caller can fall back to the single field helper.
+	 */
+	var fillers = {
+		inputText: function(inputText, value) {
+			return setInputValue(inputText, value);
+		},
+		inputMask: function(inputMask, value) {
+			return setInputValue(inputMask, value);
+		},
+		slider: function(slider, value) {
+			return setInputValue(slider, value);
+		},
+		inputNumber: function(inputNumber, value) {
+			var input = getElementById(inputNumber.id + "_input");
+			var hiddenInput = getElementById(inputNumber.id + "_hinput");
+
+			if (!input || hasKeyHandler(input)) {
+				return null;
+			}
+
+			if (hiddenInput && $.fn.autoNumeric && $(input).data("autoNumeric")) { // <p:inputNumber>
+				$(input).autoNumeric("set", value);
+				hiddenInput.value = $(input).autoNumeric("get");
+			}
+			else {
+				input.value = value; // <p:spinner>
+			}
+
+			return input;
+		},
+		spinner: function(spinner, value) {
+			return fillers.inputNumber(spinner, value);
+		},
+		selectOneMenu: function(selectOneMenu, value) {
+			var input = getElementById(selectOneMenu.id + "_input");
+			var label = getElementById(selectOneMenu.id + "_label");
+			var option = input && $(input).find("option").filter(function() { return this.value == value; });
+
+			if (!option || !option.length || !label) {
+				return null;
+			}
+
+			input.value = value;
+			$(label).text(option.text());
+			return input;
+		},
+		selectOneRadio: function(selectOneRadio, value) {
+			var radio = findRadio(selectOneRadio, value);
+
+			if (!radio) {
+				return null;
+			}
+
+			$(selectOneRadio).find(":radio").each(function() {
+				var checked = (this === radio);
+				this.checked = checked;
+				$(this).parent().next(".ui-radiobutton-box").toggleClass("ui-state-active", checked)
+					.children(".ui-radiobutton-icon").toggleClass("ui-icon-bullet", checked).toggleClass("ui-icon-blank", !checked);
+			});
+
+			return radio;
+		},
+		selectOneButton: function(selectOneButton, value) {
+			var radio = findRadio(selectOneButton, value);
+
+			if (!radio) {
+				return null;
+			}
+
+			$(selectOneButton).find(":radio").each(function() {
+				var checked = (this === radio);
+				this.checked = checked;
+				$(this).closest(".ui-button").toggleClass("ui-state-active", checked);
+			});
+
+			return radio;
+		},
+		selectBooleanCheckbox: function(selectBooleanCheckbox, checked) {
+			var input = getElementById(selectBooleanCheckbox.id + "_input");
+
+			if (!input) {
+				return null;
+			}
+
+			input.checked = checked;
+			$(selectBooleanCheckbox).find(".ui-chkbox-box").toggleClass("ui-state-active", checked)
+				.children(".ui-chkbox-icon").toggleClass("ui-icon-check", checked).toggleClass("ui-icon-blank", !checked);
+			return input;
+		}
+	};
+
+	function setInputValue(input, value) {
+		if (hasKeyHandler(input)) {
+			return null;
+		}
+
+		input.value = value;
+		return input;
+	}
+
+	function findRadio(container, value) {
+		var radios = $(container).find(":radio").filter(function() { return this.value == value; });
+		return radios.length ? radios[0] : null;
+	}
+
+	/**
+	 * Fill the given fields, starting at the given offset, until a field is encountered which can't be filled by script,
+	 * or until the events of a filled field have fired an ajax request, which the caller then has to wait for before
+	 * filling the next fields, because its update may replace them. Each field is an array of [element, type, value].
+	 * Returns an object with the index of the first field which wasn't filled, or the amount of fields when all were
+	 * filled, and whether an ajax request has been fired.
+	 */
+	function fill(form, fields, offset) {
+		var sent = ajax.sent;
+
+		for (var i = offset; i < fields.length; i++) {
+			var element = fields[i][0];
+			var filler = fillers[fields[i][1]];
+			var input = filler && $.contains(form, element) ? filler(element, fields[i][2]) : null;
+
+			if (!input) {
+				return { filled: i, fired: false };
+			}
+
+			fireEvents(input, /^(select-one|radio|checkbox)$/.test(input.type) ? selectEvents : textEvents);
+
+			if (ajax.sent > sent || !isAjaxQueueEmpty()) {
+				return { filled: i + 1, fired: true };
+			}
+		}
+
+		return { filled: fields.length, fired: false };
+	}
+
+	/**
+	 * Fire the given events on the given input via jQuery, which runs the inline handlers, such as those rendered by
+	 * <p:ajax>, as well as the handlers bound via jQuery, such as those of the PrimeFaces widgets. Blur doesn't bubble and
+	 * its default action would fire it once more in some browsers, so only its handlers are run.
+	 */
+	function fireEvents(input, events) {
+		for (var i = 0; i < events.length; i++) {
+			if (events[i] == "blur") {
+				$(input).triggerHandler(events[i]);
+			}
+			else {
+				$(input).trigger(events[i]);
+			}
+		}
+	}
+
+
+	// Widgets --------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Resolvers per select one widget type. They return the item associated with the given value, or null when it can't
+	 * be resolved, so that the caller can fall back to clicking the item.
+	 */
+	var selectOneItemResolvers = {
+		SelectOneMenu: function(widget, value) {
+			var option = widget.options.filter(function() { return this.value == value; });
+
+			return option.length != 1 ? null : {
+				label: option.text(),
+				selected: option.is(":selected"),
+				change: hasChangeBehavior(widget, widget.input[0]),
+				select: function() {
+					widget.selectValue(value);
+				}
+			};
+		},
+		SelectOneRadio: function(widget, value) {
+			var radio = widget.cfg.custom ? $() : widget.inputs.filter(function() { return this.value == value; });
+			var box = radio.parent().next(".ui-radiobutton-box");
+
+			return radio.length != 1 || box.length != 1 ? null : {
+				label: widget.labels.filter(function() { return this.htmlFor == radio[0].id; }).text(),
+				selected: box.hasClass("ui-state-active"),
+				change: hasChangeBehavior(widget, radio[0]),
+				select: function() { // Same as click handler of box.
+					widget.unselect(widget.checkedRadio);
+					widget.select(box);
+					radio.trigger("click");
+					radio.trigger("change");
+				}
+			};
+		},
+		SelectOneButton: function(widget, value) {
+			var radio = widget.inputs.filter(function() { return this.value == value; });
+			var button = radio.parent();
+
+			return radio.length != 1 ? null : {
+				label: button.find(".ui-button-text").text(),
+				selected: button.hasClass("ui-state-active"),
+				change: hasChangeBehavior(widget, radio[0]),
+				select: function() {
+					widget.select(button);
+				}
+			};
+		}
+	};
+
+	/**
+	 * Select the given value of the select one component represented by the given element via its PrimeFaces widget.
+	 * Returns null when the widget or the item can't be resolved. If selecting would fire a change behavior and guarded
+	 * is false, then the item isn't selected yet, so that the caller can repeat the call with guarded=true under an ajax
+	 * guard. Otherwise returns an object with the item label and whether it's selected.
+	 */
+	function selectOneValue(element, value, guarded) {
+		var widget = getWidget(element);
+		var item = null;
+
+		for (var type in selectOneItemResolvers) {
+			if (isWidget(widget, type)) {
+				item = selectOneItemResolvers[type](widget, value);
+				break;
+			}
+		}
+
+		if (!item) {
+			return null;
+		}
+
+		if (!item.selected) {
+			if (item.change && !guarded) {
+				return { label: item.label, selected: false };
+			}
+
+			item.select();
+		}
+
+		return { label: item.label, selected: true };
+	}
+
+
+	// Ajax -----------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Tracks all jQuery ajax requests, which includes those of PrimeFaces. The prefilter wraps the complete callback so
+	 * that a request is only considered done after PrimeFaces has updated the DOM and invoked the oncomplete handlers.
+	 * Failed requests are collected in errors, along with the sequence number of the request. The payload sizes and
+	 * timings of the most recent requests are collected in records.
+	 */
+	var ajax = {
+		sent: 0,
+		pending: 0,
+		errors: [],
+		listeners: [],
+		records: []
+	};
+
+	var maxAjaxRecords = 100;
+
+	if ($ && $.ajaxPrefilter) {
+		$.ajaxPrefilter(function(options) {
+			var request = ++ajax.sent;
+			var beforeSend = options.beforeSend;
+			var dataFilter = options.dataFilter;
+			var complete = options.complete;
+			var record = {
+				request: request,
+				requestBytes: typeof options.data == "string" ? getByteLength(options.data) : 0,
+				responseBytes: 0,
+				updates: [],
+				roundTripMillis: -1,
+				totalMillis: -1
+			};
+			var start = now();
+			ajax.pending++;
+			ajax.records.push(record);
+
+			if (ajax.records.length > maxAjaxRecords) {
+				ajax.records.shift();
+			}
+
+			options.beforeSend = function() {
+				start = now();
+				var result = beforeSend ? beforeSend.apply(this, arguments) : undefined;
+
+				if (result === false) { // Request is cancelled, e.g. by onstart returning false. Complete won't be invoked.
+					ajax.records.splice($.inArray(record, ajax.records), 1);
+					ajaxDone(request);
+				}
+
+				return result;
+			};
+			options.dataFilter = function(data) { // Invoked as soon as a successful response has arrived, before it's processed.
+				record.roundTripMillis = now() - start;
+				return dataFilter ? dataFilter.apply(this, arguments) : data;
+			};
+			options.complete = function(xhr, status) {
+				try {
+					if (complete) {
+						complete.apply(this, arguments);
+					}
+				}
+				finally {
+					completeAjaxRecord(record, xhr, now() - start);
+					ajaxDone(request, xhr, status);
+				}
+			};
+		});
+	}
+
+	function completeAjaxRecord(record, xhr, totalMillis) {
+		record.responseBytes = getByteLength(xhr.responseText || "");
+		record.updates = getUpdatedIds(xhr);
+		record.totalMillis = totalMillis;
+
+		if (record.roundTripMillis < 0) { // Failed request, the response wasn't filtered.
+			record.roundTripMillis = totalMillis;
+		}
+	}
+
+	/**
+	 * Returns the client IDs of the update elements of the JSF partial response of the given ajax request, excluding the
+	 * view state and client window updates which come along with every partial response.
+	 */
+	function getUpdatedIds(xhr) {
+		var ids = [];
+		var response = xhr.responseXML;
+
+		if (!response && (xhr.responseText || "").indexOf("<partial-response") >= 0) {
+			try {
+				response = $.parseXML(xhr.responseText);
+			}
+			catch (e) {
+				// Not parseable as XML, there are no updates.
+			}
+		}
+
+		$(response).find("partial-response > changes > update").each(function() {
+			var id = this.getAttribute("id");
+
+			if (!/javax\.faces\.(ViewState|ClientWindow)/.test(id)) {
+				ids.push(id);
+			}
+		});
+
+		return ids;
+	}
+
+	/**
+	 * Returns the payload sizes and timings of the ajax requests sent after the given amount of sent ajax requests, in
+	 * the order they were sent. Only the most recent requests are retained.
+	 */
+	function getAjaxRequests(sent) {
+		return $.grep(ajax.records, function(record) {
+			return record.request > sent;
+		});
+	}
+
+	function ajaxDone(request, xhr, status) {
+		var error = xhr ? getServerError(xhr, status) : null;
+
+		if (error) {
+			error.request = request;
+			ajax.errors.push(error);
+		}
+
+		if (--ajax.pending == 0 || error) {
+			setTimeout(notifyAjaxListeners, 0); // Give global ajaxComplete handlers a chance to run first.
+		}
+	}
+
+	/**
+	 * Returns the server error of the given completed ajax request, or null if there is none. This covers a JSF partial
+	 * response with an error element, a HTTP error status and a failed request.
+	 */
+	function getServerError(xhr, status) {
+		var response = xhr.responseText || "";
+
+		if (response.indexOf("<error-name>") >= 0) {
+			try {
+				var error = $(xhr.responseXML || $.parseXML(response)).find("partial-response > error");
+
+				if (error.length) {
+					return { name: error.find("error-name").text(), message: error.find("error-message").text(), status: xhr.status };
+				}
+			}
+			catch (e) {
+				// Not parseable as XML, fall through to checking the status.
+			}
+		}
+
+		if (xhr.status >= 400 || status == "error" || status == "parsererror" || status == "timeout") {
+			return { name: status, message: xhr.statusText, status: xhr.status };
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the first server error of the ajax requests sent after the given amount of sent ajax requests, or null.
+	 */
+	function getAjaxError(sent) {
+		for (var i = 0; i < ajax.errors.length; i++) {
+			if (ajax.errors[i].request > sent) {
+				return ajax.errors[i];
+			}
+		}
+
+		return null;
+	}
+
+	function notifyAjaxListeners() {
+		var listeners = ajax.listeners.slice();
+
+		for (var i = 0; i < listeners.length; i++) {
+			listeners[i]();
+		}
+	}
+
+	function isAjaxQueueEmpty() {
+		var queue = window.PrimeFaces && PrimeFaces.ajax && PrimeFaces.ajax.Queue;
+		return !queue || queue.isEmpty();
+	}
+
+	/**
+	 * Returns the amount of ajax requests sent so far. Pass this to awaitAjax().
+	 */
+	function getAjaxSent() {
+		return ajax.sent;
+	}
+
+	/**
+	 * Invoke the given callback with true as soon as at least one ajax request has been sent since the given amount of
+	 * sent ajax requests, and all of them have completed. Invoke the given callback with false when this doesn't happen
+	 * within the given timeout in milliseconds. Invoke the given callback with the server error as soon as one of them
+	 * has failed.
+	 */
+	function awaitAjax(sent, timeout, callback) {
+		var finished = false;
+		var timer = setTimeout(function() { finish(false); }, timeout);
+
+		function listener() {
+			var error = getAjaxError(sent);
+
+			if (error) {
+				finish(error);
+			}
+			else if (ajax.sent > sent && ajax.pending == 0 && isAjaxQueueEmpty()) {
+				finish(true);
+			}
+		}
+
+		function finish(result) {
+			if (!finished) {
+				finished = true;
+				clearTimeout(timer);
+				ajax.listeners.splice($.inArray(listener, ajax.listeners), 1);
+				callback(result);
+			}
+		}
+
+		ajax.listeners.push(listener);
+		listener();
+	}
+
+
+	/**
+	 * Returns the server error of the navigation which loaded the current page, or null if there is none or if the browser
+	 * doesn't expose the response status via the Navigation Timing API.
+	 */
+	function getNavigationError() {
+		var navigation = window.performance && performance.getEntriesByType && performance.getEntriesByType("navigation")[0];
+		var status = navigation && navigation.responseStatus;
+		return status >= 400 ? { name: "navigation", message: document.title, status: status } : null;
+	}
+
+	/**
+	 * Returns the timing of the navigation which loaded the current page in milliseconds since its start, along with the
+	 * amount and the transferred size of the resources loaded so far, or null if the browser doesn't support the
+	 * Navigation Timing API. This prefers Level 2 and falls back to Level 1. A time is -1 when its event hasn't happened
+	 * yet. The transferred size is 0 in browsers which don't expose it.
+	 */
+	function getNavigationTiming() {
+		var performance = window.performance;
+		var navigation = performance && performance.getEntriesByType && performance.getEntriesByType("navigation")[0];
+		var timing = navigation || (performance && performance.timing);
+
+		if (!timing) {
+			return null;
+		}
+
+		var start = navigation ? navigation.startTime : timing.navigationStart;
+		var since = function(end) { return end > 0 ? end - start : -1; };
+		var resources = performance.getEntriesByType ? performance.getEntriesByType("resource") : [];
+		var resourceBytes = 0;
+
+		for (var i = 0; i < resources.length; i++) {
+			resourceBytes += resources[i].transferSize || resources[i].encodedBodySize || 0;
+		}
+
+		return {
+			url: window.location.href,
+			ttfbMillis: since(timing.responseStart),
+			domContentLoadedMillis: since(timing.domContentLoadedEventEnd),
+			loadMillis: since(timing.loadEventEnd),
+			resources: resources.length,
+			resourceBytes: resourceBytes
+		};
+	}
+
+
+	// Mutations ------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Conditions which can be watched by awaitMutation(), by client ID.
+	 */
+	var mutationConditions = {
+		visible: function(clientId) {
+			var element = getElementById(clientId);
+			return !!element && $(element).is(":visible");
+		},
+		invalid: function(clientId) {
+			var element = getElementById(clientId);
+			return !!element && $(element).hasClass("ui-state-error");
+		},
+		replaced: function(clientId) {
+			return getElementById(clientId) !== snapshots[clientId];
+		}
+	};
+
+	var snapshots = {};
+
+	/**
+	 * Snapshot the given elements so that awaitMutation() can watch them for being replaced, e.g. by an ajax update.
+	 * Returns their client IDs and the amount of ajax requests sent so far.
+	 */
+	function snapshotElements(elements) {
+		var clientIds = [];
+
+		for (var i = 0; i < elements.length; i++) {
+			snapshots[elements[i].id] = elements[i];
+			clientIds.push(elements[i].id);
+		}
+
+		return { clientIds: clientIds, sent: ajax.sent };
+	}
+
+	/**
+	 * Invoke the given callback with true as soon as any of the given watches is satisfied. Each watch is an array of
+	 * [clientId, condition]. The document is observed for mutations, so the watches are only checked when something has
+	 * changed. Invoke the given callback with false when this doesn't happen within the given timeout in milliseconds.
+	 * Invoke the given callback with the server error as soon as an ajax request sent after the given amount of sent ajax
+	 * requests has failed. When the given amount is negative, then the requests which are still pending are watched.
+	 */
+	function awaitMutation(watches, sent, timeout, callback) {
+		sent = sent < 0 ? ajax.sent - ajax.pending : sent;
+		var finished = false;
+		var timer = setTimeout(function() { finish(false); }, timeout);
+		var observer = window.MutationObserver ? new MutationObserver(check) : null;
+		var poller = observer ? null : setInterval(check, 50); // Fallback for browsers without MutationObserver.
+
+		function check() {
+			var error = getAjaxError(sent);
+
+			if (error) {
+				finish(error);
+				return;
+			}
+
+			for (var i = 0; i < watches.length; i++) {
+				if (mutationConditions[watches[i][1]](watches[i][0])) {
+					finish(true);
+					return;
+				}
+			}
+		}
+
+		function finish(result) {
+			if (!finished) {
+				finished = true;
+				clearTimeout(timer);
+				clearInterval(poller);
+				ajax.listeners.splice($.inArray(check, ajax.listeners), 1);
+
+				if (observer) {
+					observer.disconnect();
+				}
+
+				callback(result);
+			}
+		}
+
+		ajax.listeners.push(check);
+
+		if (observer) {
+			observer.observe(document.documentElement, { childList: true, subtree: true, attributes: true, attributeFilter: ["class", "style"] });
+		}
+
+		check();
+	}
+
+
+	// Validity -------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the validity of all elements having an ID in the given form, keyed by client ID. This follows the same
+	 * rules as ArquillianPrimeFaces#isValid(). Elements whose validity can't be determined are skipped.
+	 */
+	function getValidityMap(form) {
+		var validityMap = {};
+
+		$(form).find("[id]").each(function() {
+			var valid = isValid(this);
+
+			if (valid !== null) {
+				validityMap[this.id] = valid;
+			}
+		});
+
+		return validityMap;
+	}
+
+	function isValid(element) {
+		var $element = $(element);
+
+		if ($element.hasClass("ui-state-error")) {
+			return false;
+		}
+		else if ($element.hasClass("ui-state-default")) { // <p:inputXxx>
+			return true;
+		}
+		else {
+			var wrapped = $element.find(".ui-state-default").first(); // <p:inputXxx> with special wrapping markup (e.g. inputNumber, spinner, etc)
+			return wrapped.length ? !wrapped.hasClass("ui-state-error") : null;
+		}
+	}
+
+
+	// Tables ---------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Returns the column titles and the rows of the current page of the given p:dataTable, along with the state of its
+	 * paginator. Each row has its index, its row key (only rendered when selection is enabled), whether it's selected and
+	 * the text of its cells. The texts are trimmed and their whitespace is collapsed, like WebElement#getText() does.
+	 */
+	function getDataTable(element) {
+		var widget = getWidget(element);
+		var paginator = isWidget(widget, "DataTable") ? widget.paginator : null;
+		var columns = [];
+
+		$(getElementById(element.id + "_head")).find("th").each(function() {
+			var title = $(this).children(".ui-column-title");
+			columns.push(getText(title.length ? title : $(this)));
+		});
+
+		var rows = getRows($(getElementById(element.id + "_data")).children("tr").not(".ui-datatable-empty-message"));
+
+		return {
+			columns: columns,
+			rows: rows,
+			page: paginator ? paginator.getCurrentPage() : 0,
+			pageCount: paginator ? paginator.cfg.pageCount : 1,
+			rowCount: paginator ? paginator.cfg.rowCount : rows.length
+		};
+	}
+
+	/**
+	 * Show the given zero-based page of the given p:dataTable via its paginator. Returns null when the table has no
+	 * paginator. Otherwise returns an object with the amount of pages, whether the given page is in range and whether an
+	 * ajax request has been fired for it, which isn't the case when it's already the current page or when it's served from
+	 * the client cache of the table.
+	 */
+	function showDataTablePage(element, page) {
+		var widget = getWidget(element);
+		var paginator = isWidget(widget, "DataTable") ? widget.paginator : null;
+
+		if (!paginator) {
+			return null;
+		}
+
+		var pageCount = paginator.cfg.pageCount;
+		var inRange = page >= 0 && page < pageCount;
+		var sent = ajax.sent;
+
+		if (inRange && page != paginator.getCurrentPage()) {
+			paginator.setPage(page);
+		}
+
+		var fired = ajax.sent > sent || !isAjaxQueueEmpty(); // Not the case when the page is served from the client cache.
+		return { pageCount: pageCount, inRange: inRange, fired: fired };
+	}
+
+	/**
+	 * Last returned row and the index of the row after it per client ID of a live scroll or virtual scroll p:dataTable, so
+	 * that the next chunk is found by looking only at the rows after it, instead of filtering all rendered rows again.
+	 */
+	var scrolledRows = {};
+
+	/**
+	 * Returns the rows of the given live scroll or virtual scroll p:dataTable from the given zero-based row index on, and
+	 * loads the next chunk of rows, the same way scrolling the table body to the bottom does. Returns null when the table
+	 * has neither live scroll nor virtual scroll. Otherwise returns an object with the rows and whether an ajax request has
+	 * been fired for the next chunk. The rows are empty when the row at the given index isn't rendered, which is the case
+	 * when a virtual scroll table currently shows another chunk, or when its chunk is still being loaded. When the rows
+	 * are empty and no ajax request has been fired, all rows have been returned.
+	 */
+	function scrollDataTable(element, offset) {
+		var widget = getWidget(element);
+
+		if (!isWidget(widget, "DataTable") || !(widget.cfg.liveScroll || widget.cfg.virtualScroll)) {
+			return null;
+		}
+
+		var body = getElementById(element.id + "_data");
+		var last = scrolledRows[element.id];
+		var $rows = (last && last.next == offset && $.contains(body, last.row)) ? $(last.row).nextAll("tr[data-ri]")
+			: $(body).children("tr[data-ri]").filter(function() { return getRowIndex(this) >= offset; }); // E.g. first call or new virtual scroll chunk.
+		var rows = ($rows.length && getRowIndex($rows[0]) == offset) ? getRows($rows) : [];
+		var next = offset + rows.length;
+
+		if (rows.length) {
+			scrolledRows[element.id] = { row: $rows[$rows.length - 1], next: next };
+		}
+		var sent = ajax.sent;
+
+		if (widget.cfg.liveScroll) {
+			if (!widget.allLoadedLiveScroll) {
+				widget.scrollBody.scrollTop(widget.scrollBody.prop("scrollHeight"));
+				widget.loadLiveRows(); // The scroll event isn't reliably fired in browsers without layout, such as HtmlUnit.
+			}
+		}
+		else if (next < widget.cfg.scrollLimit) {
+			var page = Math.floor(next / widget.cfg.scrollStep) + 1;
+			widget.loadRowsWithVirtualScroll(page);
+			widget.bodyTable.css("top", ((page - 1) * widget.rowHeight * widget.cfg.scrollStep) + "px");
+		}
+
+		return { rows: rows, fired: ajax.sent > sent || !isAjaxQueueEmpty() };
+	}
+
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	function getElementById(id) {
+		return document.getElementById(id);
+	}
+
+	function hasOnchange(element) {
+		return !!element.getAttribute("onchange");
+	}
+
+	function hasKeyHandler(element) {
+		return !!(element.getAttribute("onkeydown") || element.getAttribute("onkeypress"));
+	}
+
+	function getRows($rows) {
+		var rows = [];
+
+		$rows.each(function() {
+			var cells = [];
+
+			$(this).children("td").each(function() {
+				var title = $(this).children(".ui-column-title"); // Rendered in reflow mode.
+				var text = getText($(this));
+				cells.push(title.length ? $.trim(text.substring(getText(title).length)) : text);
+			});
+
+			var index = this.getAttribute("data-ri");
+			rows.push({
+				index: index === null ? -1 : parseInt(index, 10),
+				key: this.getAttribute("data-rk"),
+				selected: $(this).hasClass("ui-state-highlight"),
+				cells: cells
+			});
+		});
+
+		return rows;
+	}
+
+	function getRowIndex(row) {
+		return parseInt(row.getAttribute("data-ri"), 10);
+	}
+
+	function now() {
+		return window.performance && performance.now ? performance.now() : new Date().getTime();
+	}
+
+	function getByteLength(string) {
+		return unescape(encodeURIComponent(string)).length; // UTF-8.
+	}
+
+	function getText($element) {
+		return $.trim($element.text().replace(/\s+/g, " "));
+	}
+
+	return {
+		getEnvironment: getEnvironment,
+		enableFastMode: enableFastMode,
+		getNamingContainer: getNamingContainer,
+		getForm: getForm,
+		getViewState: getViewState,
+		getViewStateSize: getViewStateSize,
+		getViewStateSizes: getViewStateSizes,
+		fill: fill,
+		selectOneValue: selectOneValue,
+		getAjaxSent: getAjaxSent,
+		awaitAjax: awaitAjax,
+		getAjaxRequests: getAjaxRequests,
+		getNavigationError: getNavigationError,
+		getNavigationTiming: getNavigationTiming,
+		snapshotElements: snapshotElements,
+		awaitMutation: awaitMutation,
+		getValidityMap: getValidityMap,
+		getDataTable: getDataTable,
+		showDataTablePage: showDataTablePage,
+		scrollDataTable: scrollDataTable
+	};
+
+})(window, document, window.jQuery);
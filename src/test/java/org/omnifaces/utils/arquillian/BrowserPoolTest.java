@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.arquillian.graphene.GrapheneRuntime;
+import org.junit.Assert;
+import org.junit.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+public class BrowserPoolTest {
+
+	private final List<FakeBrowser> browsers = new ArrayList<>();
+
+	@Test(timeout=10_000)
+	public void testReleaseDiscardsBrowserWhenCookiesCannotBeDeleted() {
+		try (BrowserPool pool = new BrowserPool(1, Duration.ofSeconds(1), () -> create("deleteAllCookies"))) {
+			pool.release(pool.acquire());
+			Assert.assertTrue("Browser is quit", browsers.get(0).quit);
+
+			pool.release(pool.acquire()); // Would block forever when the slot isn't freed.
+			Assert.assertEquals("Slot is reused by a new browser", 2, browsers.size());
+		}
+	}
+
+	@Test(timeout=10_000)
+	public void testAcquireDiscardsBrowserWhenConfigurationFails() {
+		try (BrowserPool pool = new BrowserPool(1, Duration.ofSeconds(1), () -> create(browsers.isEmpty() ? "setScriptTimeout" : null))) {
+			try {
+				pool.acquire();
+				Assert.fail("WebDriverException expected");
+			}
+			catch (WebDriverException expected) {
+				Assert.assertTrue("Browser is quit", browsers.get(0).quit);
+				assertNoGrapheneRuntime();
+			}
+
+			pool.release(pool.acquire()); // Would block forever when the slot isn't freed.
+			Assert.assertEquals("Slot is reused by a new browser", 2, browsers.size());
+			Assert.assertFalse("Healthy browser is kept", browsers.get(1).quit);
+		}
+
+		Assert.assertTrue("Idle browser is quit on close", browsers.get(1).quit);
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	private static void assertNoGrapheneRuntime() {
+		try {
+			GrapheneRuntime.getInstance();
+			Assert.fail("Pushed Graphene runtime is not popped");
+		}
+		catch (IllegalStateException expected) {
+			// OK.
+		}
+	}
+
+	/**
+	 * Returns a browser whose method with the given name throws, and whose other methods do nothing.
+	 */
+	private WebDriver create(String failingMethod) {
+		FakeBrowser browser = new FakeBrowser(failingMethod);
+		browsers.add(browser);
+		return browser.proxy(WebDriver.class);
+	}
+
+	private static class FakeBrowser {
+
+		private final String failingMethod;
+		private volatile boolean quit;
+
+		FakeBrowser(String failingMethod) {
+			this.failingMethod = failingMethod;
+		}
+
+		<T> T proxy(Class<T> type) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, arguments) -> {
+				if (method.getName().equals(failingMethod)) {
+					throw new WebDriverException("Browser died");
+				}
+
+				if (method.getName().equals("quit")) {
+					quit = true;
+				}
+
+				if (method.getDeclaringClass() == Object.class) {
+					switch (method.getName()) {
+						case "equals": return proxy == arguments[0];
+						case "hashCode": return System.identityHashCode(proxy);
+						default: return "FakeBrowser";
+					}
+				}
+
+				return method.getReturnType().isInterface() ? proxy(method.getReturnType()) : null;
+			}));
+		}
+	}
+
+}
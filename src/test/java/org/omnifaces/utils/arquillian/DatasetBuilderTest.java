@@ -0,0 +1,139 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DatasetBuilderTest {
+
+	private static final String TEXT = "a,\"b\"\nc'd\\\u0001";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// Formats --------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void testCsv() throws IOException {
+		Assert.assertEquals("id,text,number,flag,missing,day,\"odd,\"\"name\"\"\"\n"
+			+ "1,\"a,\"\"b\"\"\nc'd\\\u0001\",NaN,true,,MONDAY,x\n", write(DatasetBuilder.Format.CSV, "item"));
+	}
+
+	@Test
+	public void testSql() throws IOException {
+		Assert.assertEquals("INSERT INTO shop.item (id, text, number, flag, missing, day) "
+			+ "VALUES (1, 'a,\"b\"\nc''d\\\u0001', 'NaN', TRUE, NULL, 'MONDAY');\n", write(DatasetBuilder.Format.SQL, "shop.item", false));
+	}
+
+	@Test
+	public void testJsonl() throws IOException {
+		Assert.assertEquals("{\"id\":1,\"text\":\"a,\\\"b\\\"\\u000ac'd\\\\\\u0001\",\"number\":\"NaN\",\"flag\":true,\"missing\":null,"
+			+ "\"day\":\"MONDAY\",\"odd,\\\"name\\\"\":\"x\"}\n", write(DatasetBuilder.Format.JSONL, "item"));
+	}
+
+	@Test
+	public void testSqlInvalidTableName() throws IOException {
+		Path file = folder.newFile("existing.sql").toPath();
+		Files.write(file, "existing".getBytes(UTF_8));
+
+		try {
+			DatasetBuilder.create("item; DROP TABLE item").withRowNumber("id").write(file, 1, DatasetBuilder.Format.SQL);
+			Assert.fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException expected) {
+			Assert.assertEquals("The file is untouched", "existing", read(file));
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testSqlInvalidColumnName() {
+		DatasetBuilder.create("item").withColumn("odd name", () -> "x").write(folder.getRoot().toPath().resolve("item.sql"), 1, DatasetBuilder.Format.SQL);
+	}
+
+	// Generation -----------------------------------------------------------------------------------------------------
+
+	@Test
+	public void testSameSeedSameBytesRegardlessOfParallelism() throws IOException {
+		for (DatasetBuilder.Format format : DatasetBuilder.Format.values()) {
+			Path sequential = folder.getRoot().toPath().resolve("sequential." + format);
+			Path parallel = folder.getRoot().toPath().resolve("parallel." + format);
+			random(1).write(sequential, 25_000, format);
+			random(4).write(parallel, 25_000, format);
+
+			List<String> lines = Files.readAllLines(sequential, UTF_8);
+			Assert.assertEquals(format + " has a line per row", format == DatasetBuilder.Format.CSV ? 25_001 : 25_000, lines.size());
+			Assert.assertArrayEquals(format + " is byte-identical", Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+		}
+	}
+
+	@Test
+	public void testReadmeExample() {
+		DatasetBuilder.create("item")
+			.withRowNumber("id")
+			.withColumn("name", () -> Entropy.getRandomStringOfFixedLength(20))
+			.withColumn("delivery", () -> Entropy.getRandomEnumValue(DayOfWeek.class))
+			.withColumn("created", () -> Entropy.getRandomLocalDateBetweenYears(2000, 2018))
+			.write(Paths.get(folder.getRoot().getPath(), "item.sql"), 100, DatasetBuilder.Format.SQL);
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	private String write(DatasetBuilder.Format format, String name) throws IOException {
+		return write(format, name, true);
+	}
+
+	private String write(DatasetBuilder.Format format, String name, boolean withOddColumn) throws IOException {
+		DatasetBuilder builder = DatasetBuilder.create(name)
+			.withRowNumber("id")
+			.withColumn("text", () -> TEXT)
+			.withColumn("number", () -> Double.NaN)
+			.withColumn("flag", () -> true)
+			.withColumn("missing", () -> null)
+			.withColumn("day", () -> DayOfWeek.MONDAY);
+
+		if (withOddColumn) {
+			builder.withColumn("odd,\"name\"", () -> "x");
+		}
+
+		Path file = folder.getRoot().toPath().resolve(name + "." + format);
+		builder.write(file, 1, format);
+		return read(file);
+	}
+
+	private static DatasetBuilder random(int parallelism) {
+		return DatasetBuilder.create("item")
+			.withSeed(42)
+			.withParallelism(parallelism)
+			.withRowNumber("id")
+			.withColumn("name", () -> Entropy.getRandomStringOfFixedLength(10, 'a', ',', '"', '\''))
+			.withColumn("number", () -> Entropy.getRandomNumberBetween(0, 1000))
+			.withColumn("code", Entropy::getRandomString);
+	}
+
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), UTF_8);
+	}
+
+}
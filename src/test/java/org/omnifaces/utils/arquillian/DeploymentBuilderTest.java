@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import org.jboss.shrinkwrap.api.asset.EmptyAsset;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeploymentBuilderTest {
+
+	@Test
+	public void testBuildReturnsSameArchiveForSameInputs() {
+		WebArchive archive = DeploymentBuilder.create("test.war").withClasses(DeploymentBuilderTest.class).withBeansXml().build();
+		String hash = DeploymentBuilder.hash(archive);
+
+		Assert.assertEquals(hash, DeploymentBuilder.hash(DeploymentBuilder.create("test.war").withClasses(DeploymentBuilderTest.class).withBeansXml().build()));
+		Assert.assertNotEquals(hash, DeploymentBuilder.hash(DeploymentBuilder.create("test.war").withClasses(DeploymentBuilderTest.class).build()));
+		Assert.assertNotEquals(hash, DeploymentBuilder.hash(DeploymentBuilder.create("other.war").withClasses(DeploymentBuilderTest.class).withBeansXml().build()));
+		Assert.assertTrue(archive.contains("WEB-INF/beans.xml"));
+	}
+
+	@Test
+	public void testBuildDoesNotShareModifications() {
+		WebArchive first = DeploymentBuilder.create("copy.war").withClasses(DeploymentBuilderTest.class).build();
+		String hash = DeploymentBuilder.hash(first);
+		first.addAsLibrary(EmptyAsset.INSTANCE, "arquillian-protocol.jar");
+		first.delete("WEB-INF/classes/" + DeploymentBuilderTest.class.getName().replace('.', '/') + ".class");
+
+		WebArchive second = DeploymentBuilder.create("copy.war").withClasses(DeploymentBuilderTest.class).build();
+		Assert.assertNotSame(first, second);
+		Assert.assertEquals(hash, DeploymentBuilder.hash(second));
+		Assert.assertFalse(second.contains("WEB-INF/lib/arquillian-protocol.jar"));
+		Assert.assertTrue(second.contains("WEB-INF/classes/" + DeploymentBuilderTest.class.getName().replace('.', '/') + ".class"));
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.Description;
+
+public class EntropyRuleTest {
+
+	private static final Description DESCRIPTION = Description.createTestDescription(EntropyRuleTest.class, "test");
+
+	@After
+	public void reset() {
+		System.clearProperty(EntropyRule.SEED_PROPERTY);
+		System.clearProperty(Entropy.FORK_PROPERTY);
+	}
+
+	@Test
+	public void testReplaySeedOfSystemProperty() {
+		System.setProperty(EntropyRule.SEED_PROPERTY, "1234");
+		String expected = new SeededEntropy(1234).getRandomStringOfFixedLength(20);
+
+		for (int i = 0; i < 2; i++) {
+			EntropyRule rule = new EntropyRule();
+			rule.starting(DESCRIPTION);
+
+			try {
+				Assert.assertEquals(1234, rule.getSeed());
+				Assert.assertEquals(expected, Entropy.getRandomStringOfFixedLength(20));
+			}
+			finally {
+				rule.finished(DESCRIPTION);
+			}
+		}
+	}
+
+	@Test
+	public void testOwnStreamPerFork() {
+		System.setProperty(EntropyRule.SEED_PROPERTY, "1234");
+		String first = valueInFork("1");
+		String second = valueInFork("2");
+
+		Assert.assertNotEquals("Forks replaying the same seed get their own stream", first, second);
+		Assert.assertEquals("Fork replays its own stream", first, valueInFork("1"));
+		Assert.assertEquals(new SeededEntropy(EntropyRule.getForkSeed(1234, 1L)).getRandomStringOfFixedLength(20), first);
+	}
+
+	@Test
+	public void testRandomSeedWithoutSystemProperty() {
+		EntropyRule rule = new EntropyRule();
+		rule.starting(DESCRIPTION);
+
+		try {
+			Assert.assertEquals(new SeededEntropy(rule.getSeed()).getRandomStringOfFixedLength(20), Entropy.getRandomStringOfFixedLength(20));
+		}
+		finally {
+			rule.finished(DESCRIPTION);
+		}
+	}
+
+	@Test
+	public void testRebindPreviousWhenFinished() {
+		SeededEntropy outer = new SeededEntropy(42);
+
+		outer.run(() -> {
+			EntropyRule rule = new EntropyRule(1234);
+			rule.starting(DESCRIPTION);
+			Assert.assertSame(rule.getEntropy(), Entropy.current());
+			rule.finished(DESCRIPTION);
+			Assert.assertSame(outer, Entropy.current());
+		});
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testSeedBeforeStarting() {
+		new EntropyRule().getSeed();
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	private static String valueInFork(String fork) {
+		System.setProperty(Entropy.FORK_PROPERTY, fork);
+		EntropyRule rule = new EntropyRule();
+		rule.starting(DESCRIPTION);
+
+		try {
+			Assert.assertEquals("The seed to replay is the one of all forks", 1234, rule.getSeed());
+			return Entropy.getRandomStringOfFixedLength(20);
+		}
+		finally {
+			rule.finished(DESCRIPTION);
+		}
+	}
+
+}
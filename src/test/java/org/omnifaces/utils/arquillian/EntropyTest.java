@@ -0,0 +1,142 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EntropyTest {
+
+	private static final int THREADS = 8;
+	private static final int STRINGS_PER_THREAD = 50_000;
+
+	@After
+	public void reset() {
+		Entropy.configureFastMode(false);
+	}
+
+	@Test
+	public void testFastModeStringsUniqueAcrossThreads() throws Exception {
+		Entropy.configureFastMode(true);
+		Set<String> strings = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+		try {
+			List<Future<?>> tasks = new ArrayList<>();
+
+			for (int i = 0; i < THREADS; i++) {
+				tasks.add(executor.submit(() -> {
+					for (int j = 0; j < STRINGS_PER_THREAD; j++) {
+						Assert.assertTrue("Duplicate string", strings.add(Entropy.getRandomString()));
+					}
+				}));
+			}
+
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+
+		Assert.assertEquals(THREADS * STRINGS_PER_THREAD, strings.size());
+	}
+
+	@Test
+	public void testFastModeStringsUniqueAcrossForks() {
+		long salt = 42; // The same salt in all forks, the worst case.
+		Set<String> strings = new HashSet<>();
+		Set<String> mostSignificantHalves = new HashSet<>();
+
+		for (long fork = 1; fork <= THREADS; fork++) {
+			long node = Entropy.getNode(fork, salt);
+
+			for (long counter = 1; counter <= STRINGS_PER_THREAD / THREADS; counter++) {
+				String string = Entropy.getUniqueString(node, counter);
+				Assert.assertTrue("Duplicate string " + string, strings.add(string));
+				mostSignificantHalves.add(string.substring(0, 18));
+			}
+		}
+
+		Assert.assertEquals("The most significant half varies per string", strings.size(), mostSignificantHalves.size());
+		Assert.assertNotEquals(Entropy.getNode(1L, salt), Entropy.getNode(null, salt));
+	}
+
+	@Test
+	public void testFork() {
+		try {
+			System.setProperty(Entropy.FORK_PROPERTY, " 3 ");
+			Assert.assertEquals(Long.valueOf(3), Entropy.getFork());
+
+			for (String invalidFork : new String[] { "${surefire.forkNumber}", "-1", "65536" }) {
+				System.setProperty(Entropy.FORK_PROPERTY, invalidFork);
+
+				try {
+					Entropy.getFork();
+					Assert.fail("IllegalStateException expected for " + invalidFork);
+				}
+				catch (IllegalStateException expected) {
+					Assert.assertTrue(expected.getMessage().contains(invalidFork));
+				}
+			}
+		}
+		finally {
+			System.clearProperty(Entropy.FORK_PROPERTY);
+		}
+	}
+
+	@Test
+	public void testSeededStringsReproducibleWithoutFastMode() {
+		List<String> strings = new ArrayList<>();
+		new SeededEntropy(42).run(() -> strings.add(Entropy.getRandomString()));
+		new SeededEntropy(42).run(() -> strings.add(Entropy.getRandomString()));
+
+		Assert.assertEquals(strings.get(0), strings.get(1));
+		Assert.assertEquals(new SeededEntropy(42).getRandomString(), strings.get(0));
+	}
+
+	@Test
+	public void testFastModeWinsOverSeed() {
+		Entropy.configureFastMode(true);
+		List<String> strings = new ArrayList<>();
+		List<String> values = new ArrayList<>();
+
+		for (int i = 0; i < 2; i++) {
+			new SeededEntropy(42).run(() -> {
+				strings.add(Entropy.getRandomString());
+				values.add(Entropy.getRandomStringOfFixedLength(10));
+			});
+		}
+
+		Assert.assertNotEquals("Same seed still gives unique strings", strings.get(0), strings.get(1));
+		Assert.assertEquals("The other values remain reproducible", values.get(0), values.get(1));
+
+		SeededEntropy expected = new SeededEntropy(42);
+		expected.getRandomString();
+		Assert.assertEquals(expected.getRandomStringOfFixedLength(10), values.get(0));
+	}
+
+}
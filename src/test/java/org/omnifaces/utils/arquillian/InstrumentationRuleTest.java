@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.Description;
+
+public class InstrumentationRuleTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWriteReportsOnlyOnRequest() throws IOException {
+		Path directory = folder.getRoot().toPath();
+		InstrumentationRule rule = new InstrumentationRule(directory);
+		Description description = Description.createTestDescription(InstrumentationRuleTest.class, "test");
+
+		rule.starting(description);
+		Instrumentation.record("clickCommandButton", singletonMap("wallMillis", 42));
+		rule.finished(description);
+		Assert.assertFalse(Files.exists(directory.resolve("instrumentation.json")));
+
+		InstrumentationRule.writeReports();
+		Assert.assertTrue(read(directory.resolve("instrumentation.json")).contains("\"clickCommandButton\""));
+		Assert.assertTrue(read(directory.resolve("instrumentation.csv")).contains(InstrumentationRuleTest.class.getName() + "#test,clickCommandButton,wallMillis,1,42.000,42.000,42.000"));
+		Assert.assertTrue(Files.exists(directory.resolve("timeline.json")));
+
+		Files.delete(directory.resolve("instrumentation.json"));
+		InstrumentationRule.writeReports();
+		Assert.assertFalse(Files.exists(directory.resolve("instrumentation.json")));
+	}
+
+	@Test
+	public void testWriteReportEscapesJson() throws IOException {
+		Instrumentation.start("test\t\"name\"\\");
+		Instrumentation.record("operation\n\u0001", singletonMap("metric", 1));
+		Instrumentation.Test test = Instrumentation.stop();
+
+		Path directory = folder.getRoot().toPath();
+		InstrumentationRule.writeReport(directory, "report", singletonList(test));
+		String json = read(directory.resolve("report.json"));
+
+		Assert.assertTrue(json.contains("\"test\\u0009\\\"name\\\"\\\\\": {"));
+		Assert.assertTrue(json.contains("\"operation\\u000a\\u0001\": {"));
+		Assert.assertFalse(json.contains("\t\"name"));
+		Assert.assertFalse(json.contains("\u0001"));
+	}
+
+	@Test
+	public void testWriteReportQuotesCsv() throws IOException {
+		Instrumentation.start("test[with\r\nnewline]");
+		Instrumentation.record("operation", singletonMap("metric", 1));
+		Instrumentation.Test test = Instrumentation.stop();
+
+		Path directory = folder.getRoot().toPath();
+		InstrumentationRule.writeReport(directory, "report", singletonList(test));
+
+		Assert.assertTrue(read(directory.resolve("report.csv")).contains("\n\"test[with\r\nnewline]\",operation,metric,1,"));
+	}
+
+	@Test
+	public void testReportNamePerFork() {
+		Assert.assertEquals("instrumentation", InstrumentationRule.getName("instrumentation", null));
+		Assert.assertEquals("instrumentation-2", InstrumentationRule.getName("instrumentation", 2L));
+	}
+
+	@Test
+	public void testWriteTimelineInNavigationOrder() throws IOException {
+		Instrumentation.start("withoutNavigations");
+		Instrumentation.Test withoutNavigations = Instrumentation.stop();
+
+		Instrumentation.start("withNavigations");
+		Instrumentation.recordNavigation("http://localhost/first.xhtml", timing(12, 34, -1));
+		Instrumentation.recordNavigation("http://localhost/second.xhtml", timing(5, 6, 7.5));
+		Instrumentation.Test withNavigations = Instrumentation.stop();
+
+		Path directory = folder.getRoot().toPath();
+		InstrumentationRule.writeTimeline(directory, "timeline", asList(withoutNavigations, withNavigations));
+
+		Assert.assertEquals("{"
+			+ "\n\t\"withNavigations\": ["
+			+ "\n\t\t{ \"url\": \"http://localhost/first.xhtml\", \"timeToFirstByte\": 12.000, \"domContentLoaded\": 34.000 },"
+			+ "\n\t\t{ \"url\": \"http://localhost/second.xhtml\", \"timeToFirstByte\": 5.000, \"domContentLoaded\": 6.000, \"load\": 7.500 }"
+			+ "\n\t]"
+			+ "\n}\n", read(directory.resolve("timeline.json")));
+
+		Assert.assertEquals(2, withNavigations.getSamples().stream().filter(sample -> sample.getOperation().equals("navigation")).count());
+	}
+
+	private static Map<String, Number> timing(double timeToFirstByte, double domContentLoaded, double load) {
+		Map<String, Number> timing = new LinkedHashMap<>();
+		timing.put("timeToFirstByte", timeToFirstByte);
+		timing.put("domContentLoaded", domContentLoaded);
+		timing.put("load", load); // Negative when not happened yet, it must then be skipped.
+		return timing;
+	}
+
+	private static String read(Path path) throws IOException {
+		return new String(Files.readAllBytes(path), UTF_8);
+	}
+
+}
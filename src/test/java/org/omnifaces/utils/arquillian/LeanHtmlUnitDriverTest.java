@@ -0,0 +1,64 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Collections.emptyList;
+
+import java.net.URL;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.Cache;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseData;
+
+public class LeanHtmlUnitDriverTest {
+
+	@After
+	public void reset() {
+		LeanHtmlUnitDriver.clearCache();
+	}
+
+	@Test
+	public void testSharedCacheReleasedWhenLastBrowserQuits() throws Exception {
+		LeanHtmlUnitDriver first = new LeanHtmlUnitDriver();
+		LeanHtmlUnitDriver second = new LeanHtmlUnitDriver();
+
+		try {
+			Cache cache = LeanHtmlUnitDriver.getSharedCache();
+			WebRequest request = new WebRequest(new URL("http://localhost/javax.faces.resource/script.js"));
+			Assert.assertTrue("Static resource is cached", cache.cacheIfPossible(request,
+				new WebResponse(new WebResponseData("".getBytes(), 200, "OK", emptyList()), request, 0), null));
+
+			first.getWebClient().getCache().clear();
+			Assert.assertEquals("Clearing via a single browser doesn't clear it under the other", 1, cache.getSize());
+
+			first.quit();
+			Assert.assertEquals("Quitting a browser doesn't clear it under the other", 1, cache.getSize());
+
+			first.quit();
+			Assert.assertEquals("Quitting a browser twice doesn't clear it under the other", 1, cache.getSize());
+
+			second.quit();
+			Assert.assertEquals("Quitting the last browser clears it", 0, cache.getSize());
+		}
+		finally {
+			first.quit();
+			second.quit();
+		}
+	}
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian;
+
+import static java.util.Arrays.asList;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeededEntropyTest {
+
+	private static final char[] ALPHABET = { 'a', 'b', 'c', '-' };
+
+	// Strings --------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void testLettersAndDigits() {
+		Assert.assertEquals("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", new String(SeededEntropy.LETTERS_AND_DIGITS));
+	}
+
+	@Test
+	public void testRandomStringOfFixedLength() {
+		SeededEntropy entropy = new SeededEntropy(42);
+
+		for (int length : new int[] { 0, 1, 10, 1000 }) {
+			String string = entropy.getRandomStringOfFixedLength(length);
+			Assert.assertEquals(length, string.length());
+			assertOnlyCharactersOf(SeededEntropy.LETTERS_AND_DIGITS, string);
+		}
+	}
+
+	@Test
+	public void testRandomStringOfFixedLengthWithAlphabet() {
+		SeededEntropy entropy = new SeededEntropy(42);
+		String string = entropy.getRandomStringOfFixedLength(1000, ALPHABET);
+
+		Assert.assertEquals(1000, string.length());
+		assertOnlyCharactersOf(ALPHABET, string);
+		Assert.assertEquals("All characters of the alphabet are used", ALPHABET.length, string.chars().distinct().count());
+		Assert.assertEquals("xxxxx", entropy.getRandomStringOfFixedLength(5, 'x'));
+	}
+
+	@Test
+	public void testRandomStringsOfFixedLengthWithAlphabet() {
+		List<String> strings = new SeededEntropy(42).getRandomStringsOfFixedLength(100, 8, ALPHABET);
+
+		Assert.assertEquals(100, strings.size());
+
+		for (String string : strings) {
+			Assert.assertEquals(8, string.length());
+			assertOnlyCharactersOf(ALPHABET, string);
+		}
+
+		Assert.assertTrue("The reused buffer doesn't leak between strings", new HashSet<>(strings).size() > 90);
+	}
+
+	@Test
+	public void testAppendRandomStringOfFixedLength() {
+		StringBuilder builder = new StringBuilder("prefix:");
+		new SeededEntropy(42).appendRandomStringOfFixedLength(builder, 20, ALPHABET);
+
+		Assert.assertEquals(27, builder.length());
+		Assert.assertTrue(builder.toString().startsWith("prefix:"));
+		assertOnlyCharactersOf(ALPHABET, builder.substring(7));
+	}
+
+	@Test
+	public void testSameSeedSameStrings() {
+		Assert.assertEquals(new SeededEntropy(42).getRandomStringOfFixedLength(100, ALPHABET), new SeededEntropy(42).getRandomStringOfFixedLength(100, ALPHABET));
+		Assert.assertEquals(new SeededEntropy(42).getRandomStringsOfFixedLength(10, 10), new SeededEntropy(42).getRandomStringsOfFixedLength(10, 10));
+	}
+
+	// Numbers --------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void testRandomNumberOfFixedLength() {
+		SeededEntropy entropy = new SeededEntropy(42);
+
+		for (int length : new int[] { 1, 18 }) {
+			for (int i = 0; i < 1000; i++) {
+				assertNumberOfFixedLength(length, String.valueOf(entropy.getRandomNumberOfFixedLength(length)));
+			}
+
+			for (long number : entropy.getRandomNumbersOfFixedLength(1000, length)) {
+				assertNumberOfFixedLength(length, String.valueOf(number));
+			}
+		}
+	}
+
+	@Test
+	public void testRandomNumberOfFixedLengthOutOfRange() {
+		SeededEntropy entropy = new SeededEntropy(42);
+
+		for (int length : new int[] { 0, 19, 100 }) {
+			assertIllegalArgument(() -> entropy.getRandomNumberOfFixedLength(length));
+			assertIllegalArgument(() -> entropy.getRandomNumbersOfFixedLength(1, length));
+		}
+	}
+
+	@Test
+	public void testRandomBigIntegerAndDigitsOfFixedLength() {
+		SeededEntropy entropy = new SeededEntropy(42);
+
+		for (int length : new int[] { 1, 18, 19, 100 }) {
+			for (int i = 0; i < 100; i++) {
+				assertNumberOfFixedLength(length, entropy.getRandomBigIntegerOfFixedLength(length).toString());
+				assertNumberOfFixedLength(length, entropy.getRandomDigitsOfFixedLength(length));
+				assertNumberOfFixedLength(length, entropy.appendRandomDigitsOfFixedLength(new StringBuilder(), length).toString());
+			}
+		}
+
+		assertIllegalArgument(() -> entropy.getRandomBigIntegerOfFixedLength(0));
+		assertIllegalArgument(() -> entropy.getRandomDigitsOfFixedLength(0));
+	}
+
+	// Seeds ----------------------------------------------------------------------------------------------------------
+
+	@Test
+	public void testSameSeedSameSequence() {
+		Assert.assertEquals(sequence(new SeededEntropy(42)), sequence(new SeededEntropy(42)));
+		Assert.assertNotEquals(sequence(new SeededEntropy(42)), sequence(new SeededEntropy(43)));
+		Assert.assertEquals(42, new SeededEntropy(42).getSeed());
+	}
+
+	@Test
+	public void testSplitIndependent() {
+		SeededEntropy entropy = new SeededEntropy(42);
+		SeededEntropy first = entropy.split();
+		SeededEntropy second = entropy.split();
+		List<String> parentSequence = sequence(entropy);
+		List<String> firstSequence = sequence(first);
+		List<String> secondSequence = sequence(second);
+
+		Assert.assertNotEquals(firstSequence, secondSequence);
+		Assert.assertNotEquals(parentSequence, firstSequence);
+		Assert.assertNotEquals(parentSequence, secondSequence);
+
+		SeededEntropy replay = new SeededEntropy(42);
+		Assert.assertEquals("Split is reproducible", firstSequence, sequence(replay.split()));
+		Assert.assertEquals("Split is reproducible", secondSequence, sequence(replay.split()));
+		Assert.assertEquals("Split doesn't depend on use of other splits", parentSequence, sequence(replay));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEmptyAlphabet() {
+		new SeededEntropy(42).getRandomStringOfFixedLength(1, new char[0]);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEmptyAlphabetOfStrings() {
+		new SeededEntropy(42).getRandomStringsOfFixedLength(1, 1, new char[0]);
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testEmptyAlphabetOfAppend() {
+		new SeededEntropy(42).appendRandomStringOfFixedLength(new StringBuilder(), 1, new char[0]);
+	}
+
+	// Helpers --------------------------------------------------------------------------------------------------------
+
+	private static List<String> sequence(SeededEntropy entropy) {
+		return asList(
+			entropy.getRandomString(),
+			entropy.getRandomStringOfFixedLength(10),
+			String.valueOf(entropy.getRandomNumberBetween(0, 1000)),
+			String.valueOf(entropy.getRandomNumberOfFixedLength(10)),
+			entropy.getRandomDigitsOfFixedLength(30),
+			String.valueOf(entropy.getRandomLocalDateBetweenYears(2000, 2018)));
+	}
+
+	private static void assertNumberOfFixedLength(int length, String number) {
+		Assert.assertTrue("Not a number of " + length + " digits without leading zero: " + number, number.matches("[1-9][0-9]{" + (length - 1) + "}"));
+	}
+
+	private static void assertIllegalArgument(Runnable task) {
+		try {
+			task.run();
+			Assert.fail("IllegalArgumentException expected");
+		}
+		catch (IllegalArgumentException expected) {
+			Assert.assertFalse("Not a NumberFormatException", expected instanceof NumberFormatException);
+		}
+	}
+
+	private static void assertOnlyCharactersOf(char[] alphabet, String string) {
+		Set<Character> characters = new HashSet<>();
+
+		for (char c : alphabet) {
+			characters.add(c);
+		}
+
+		for (char c : string.toCharArray()) {
+			Assert.assertTrue("Unexpected character '" + c + "' in " + string, characters.contains(c));
+		}
+	}
+
+}
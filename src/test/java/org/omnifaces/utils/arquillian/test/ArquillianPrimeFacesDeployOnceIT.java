@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian.test;
+
+import java.net.URL;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.drone.api.annotation.Drone;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.omnifaces.utils.arquillian.DeploymentBuilder;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Builds the same archive as {@link ArquillianPrimeFacesIT}, so that the deploy-once extension must skip deploying it
+ * again, regardless of which test class runs first.
+ */
+@RunWith(Arquillian.class)
+public class ArquillianPrimeFacesDeployOnceIT {
+
+	@Deployment(testable=false)
+	public static WebArchive createDeployment() {
+		return ArquillianPrimeFacesIT.createDeployment();
+	}
+
+	@Drone
+	private WebDriver browser;
+
+	@ArquillianResource
+	private URL baseURL;
+
+	@Test
+	public void testSameArchiveContent() {
+		Assert.assertEquals(DeploymentBuilder.hash(ArquillianPrimeFacesIT.createDeployment()), DeploymentBuilder.hash(createDeployment()));
+	}
+
+	@Test
+	public void testDeployedOnce() {
+		ArquillianPrimeFacesIT.assertDeployedOnce(browser, baseURL);
+	}
+
+}
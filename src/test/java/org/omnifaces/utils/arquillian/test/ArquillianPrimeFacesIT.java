@@ -13,24 +13,28 @@
 package org.omnifaces.utils.arquillian.test;
 
 import static java.lang.System.getProperty;
-import static org.jboss.shrinkwrap.api.ShrinkWrap.create;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 
 import java.io.Serializable;
 import java.net.URL;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 
 import org.jboss.arquillian.container.test.api.Deployment;
 import org.jboss.arquillian.drone.api.annotation.Drone;
 import org.jboss.arquillian.junit.Arquillian;
 import org.jboss.arquillian.test.api.ArquillianResource;
-import org.jboss.shrinkwrap.api.asset.EmptyAsset;
-import org.jboss.shrinkwrap.api.spec.JavaArchive;
 import org.jboss.shrinkwrap.api.spec.WebArchive;
-import org.jboss.shrinkwrap.resolver.api.maven.Maven;
-import org.jboss.shrinkwrap.resolver.api.maven.archive.importer.MavenImporter;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Rule;
@@ -39,10 +43,21 @@ import org.junit.rules.TestRule;
 import org.junit.rules.TestWatcher;
 import org.junit.runner.Description;
 import org.junit.runner.RunWith;
+import org.omnifaces.utils.arquillian.AjaxRequest;
 import org.omnifaces.utils.arquillian.ArquillianPrimeFaces;
+import org.omnifaces.utils.arquillian.BrowserPool;
+import org.omnifaces.utils.arquillian.DataTable;
+import org.omnifaces.utils.arquillian.DeploymentBuilder;
 import org.omnifaces.utils.arquillian.Entropy;
+import org.omnifaces.utils.arquillian.EntropyRule;
+import org.omnifaces.utils.arquillian.InstrumentationRule;
+import org.omnifaces.utils.arquillian.PrimeFacesEnvironment;
+import org.omnifaces.utils.arquillian.SeededEntropy;
+import org.omnifaces.utils.arquillian.ServerErrorException;
 import org.omnifaces.utils.arquillian.test.ArquillianPrimeFacesITBean.Item;
+import org.openqa.selenium.By;
 import org.openqa.selenium.Dimension;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.support.FindBy;
@@ -50,19 +65,27 @@ import org.openqa.selenium.support.FindBy;
 @RunWith(Arquillian.class)
 public class ArquillianPrimeFacesIT {
 
+	/** The deployment IDs seen by all test classes sharing the deployment, see also {@link ArquillianPrimeFacesDeployOnceIT}. */
+	static final Set<String> DEPLOYMENT_IDS = ConcurrentHashMap.newKeySet();
+
 	@Deployment(testable=false)
 	public static WebArchive createDeployment() {
 		String packageName = ArquillianPrimeFacesITBean.class.getPackage().getName();
 
-		return create(WebArchive.class)
-			.addClass(ArquillianPrimeFacesITBean.class)
-			.addAsLibrary(create(MavenImporter.class).loadPomFromFile("pom.xml").importBuildOutput().as(JavaArchive.class))
-			.addAsLibraries(Maven.resolver().resolve("org.primefaces:primefaces:" + getProperty("test.primefaces.version")).withTransitivity().asFile())
-			.addAsWebInfResource(EmptyAsset.INSTANCE, "beans.xml")
-			.addAsWebResource(packageName + "/stateful.xhtml")
-			.addAsWebResource(packageName + "/statefulWithDialog.xhtml")
-			.addAsWebResource(packageName + "/stateless.xhtml")
-			.addAsWebResource(packageName + "/form.xhtml");
+		return DeploymentBuilder.create(ArquillianPrimeFacesIT.class.getSimpleName() + ".war")
+			.withBuildOutput()
+			.withPrimeFaces(getProperty("test.primefaces.version"))
+			.withClasses(ArquillianPrimeFacesITBean.class)
+			.withWebResources(
+				packageName + "/stateful.xhtml",
+				packageName + "/statefulWithDialog.xhtml",
+				packageName + "/stateless.xhtml",
+				packageName + "/form.xhtml",
+				packageName + "/dataTable.xhtml",
+				packageName + "/ajax.xhtml",
+				packageName + "/deployment.xhtml")
+			.withBeansXml()
+			.build();
 	}
 
 	@Rule
@@ -77,6 +100,12 @@ public class ArquillianPrimeFacesIT {
 		}
 	};
 
+	@Rule
+	public InstrumentationRule instrumentation = new InstrumentationRule();
+
+	@Rule
+	public EntropyRule entropy = new EntropyRule();
+
 	@Drone
 	private WebDriver browser;
 
@@ -156,6 +185,45 @@ public class ArquillianPrimeFacesIT {
 	@FindBy(id="openDialogForm:openDialogCommandButton")
 	private WebElement openDialogCommandButton;
 
+	@FindBy(id="tableForm:table")
+	private WebElement table;
+
+	@FindBy(id="scrollForm:liveScrollTable")
+	private WebElement liveScrollTable;
+
+	@FindBy(id="scrollForm:virtualScrollTable")
+	private WebElement virtualScrollTable;
+
+	@FindBy(id="scrollForm:overcountedScrollTable")
+	private WebElement overcountedScrollTable;
+
+	@FindBy(id="ajaxForm")
+	private WebElement ajaxForm;
+
+	@FindBy(id="ajaxForm:keyupInput")
+	private WebElement keyupInput;
+
+	@FindBy(id="ajaxForm:keyupOutput")
+	private WebElement keyupOutput;
+
+	@FindBy(id="ajaxForm:blurInput")
+	private WebElement blurInput;
+
+	@FindBy(id="ajaxForm:blurOutput")
+	private WebElement blurOutput;
+
+	@FindBy(id="updateForm:input")
+	private WebElement updateFormInput;
+
+	@FindBy(id="updateForm:update")
+	private WebElement updateFormButton;
+
+	@FindBy(id="errorForm:ajaxError")
+	private WebElement ajaxErrorButton;
+
+	@FindBy(id="errorForm:navigationError")
+	private WebElement navigationErrorButton;
+
 
 	// Tests ----------------------------------------------------------------------------------------------------------
 
@@ -231,6 +299,96 @@ public class ArquillianPrimeFacesIT {
 		fillInputValuesAndSubmit(commandLinkWithRedirect, ArquillianPrimeFaces::clickCommandLinkWithRedirect);
 	}
 
+	@Test
+	public void testStatefulWithCommandButtonAndBatchFill() {
+		openStateful();
+		fillInputValuesInBatchAndSubmit(commandButton, ArquillianPrimeFaces::clickCommandButton);
+	}
+
+	@Test
+	public void testStatelessWithCommandButtonAndBatchFill() {
+		openStateless();
+		fillInputValuesInBatchAndSubmit(commandButton, ArquillianPrimeFaces::clickCommandButton);
+	}
+
+	@Test
+	public void testDeployedOnce() {
+		assertDeployedOnce(browser, baseURL);
+	}
+
+	static void assertDeployedOnce(WebDriver browser, URL baseURL) {
+		browser.get(baseURL + "deployment.xhtml");
+		DEPLOYMENT_IDS.add(browser.findElement(By.id("deploymentId")).getText());
+		Assert.assertEquals("All test classes share the same deployment", 1, DEPLOYMENT_IDS.size());
+	}
+
+	@Test
+	public void testBatchFillWithKeyupAndBlurAjax() {
+		open("ajax.xhtml");
+		String keyupValue = Entropy.getRandomString();
+		String blurValue = Entropy.getRandomString();
+		ArquillianPrimeFaces.fill(ajaxForm).inputText(keyupInput, keyupValue).inputText(blurInput, blurValue).apply();
+		Assert.assertEquals(keyupValue, keyupOutput.getText());
+		Assert.assertEquals(blurValue, blurOutput.getText());
+	}
+
+	@Test
+	public void testGetFormAfterAjaxUpdateReplacedIt() {
+		open("ajax.xhtml");
+		WebElement form = ArquillianPrimeFaces.getForm(updateFormInput);
+		ArquillianPrimeFaces.clickCommandButton(updateFormButton);
+
+		try {
+			form.isDisplayed();
+			Assert.fail("Form should have been replaced by ajax update");
+		}
+		catch (StaleElementReferenceException expected) {
+			// Fall through.
+		}
+
+		WebElement updatedForm = ArquillianPrimeFaces.getForm(updateFormInput);
+		Assert.assertTrue(updatedForm.isDisplayed());
+		Assert.assertEquals(browser.findElement(By.id("updateForm")), updatedForm);
+	}
+
+	@Test(expected=ServerErrorException.class)
+	public void testCommandButtonWithAjaxServerError() {
+		open("ajax.xhtml");
+		ArquillianPrimeFaces.clickCommandButton(ajaxErrorButton);
+	}
+
+	@Test
+	public void testCommandButtonWithoutAjaxServerError() {
+		open("ajax.xhtml");
+
+		try {
+			ArquillianPrimeFaces.clickCommandButton(navigationErrorButton);
+			Assert.fail("Server error should have been detected");
+		}
+		catch (ServerErrorException expected) {
+			Assert.assertEquals(500, expected.getStatus());
+		}
+	}
+
+	@Test
+	public void testStatefulWithCommandButtonAndWaitForUpdate() {
+		openStateful();
+		fillInputValuesAndSubmit(commandButton, command -> ArquillianPrimeFaces.waitForUpdate(command::click, form));
+	}
+
+	@Test
+	public void testStatefulWithCommandButtonInWidgetMode() {
+		openStateful();
+		ArquillianPrimeFaces.configureWidgetMode(browser, true);
+
+		try {
+			fillInputValuesAndSubmit(commandButton, ArquillianPrimeFaces::clickCommandButton);
+		}
+		finally {
+			ArquillianPrimeFaces.configureWidgetMode(browser, false);
+		}
+	}
+
 	@Test
 	public void testStatefulDialogOpenedByButtonWithCommandButton() {
 		openStatefulDialogWithButton();
@@ -243,6 +401,19 @@ public class ArquillianPrimeFacesIT {
 		fillInputValuesAndSubmit(commandButton, ArquillianPrimeFaces::clickCommandButton);
 	}
 
+	@Test
+	public void testStatefulDialogOpenedByCommandButtonWithCommandButtonInFastMode() {
+		ArquillianPrimeFaces.configureFastMode(browser, true);
+
+		try {
+			openStatefulDialogWithCommandButton();
+			fillInputValuesAndSubmit(commandButton, ArquillianPrimeFaces::clickCommandButton);
+		}
+		finally {
+			ArquillianPrimeFaces.configureFastMode(browser, false);
+		}
+	}
+
 	@Test
 	public void testValidationErrors() {
 		openStateful();
@@ -250,12 +421,140 @@ public class ArquillianPrimeFacesIT {
 		assertSubmitInvalid();
 	}
 
+	@Test
+	public void testValidationErrorsWithValidityMap() {
+		openStateful();
+		submit(commandButton, ArquillianPrimeFaces::clickCommandButton);
+		assertSubmitInvalid(ArquillianPrimeFaces.getValidityMap(form));
+	}
+
 	@Test
 	public void testPresence() {
 		openStateful();
 		assertPresence();
 	}
 
+	@Test
+	public void testEnvironment() {
+		openStateful();
+		PrimeFacesEnvironment environment = ArquillianPrimeFaces.getEnvironment();
+		Assert.assertEquals(':', environment.getSeparatorChar());
+		Assert.assertNotNull(environment.getJQueryVersion());
+		Assert.assertNotNull(environment.getWidgetVar(selectOneMenu.getAttribute("id")));
+	}
+
+	@Test
+	public void testDataTable() {
+		open("dataTable.xhtml");
+		DataTable dataTable = ArquillianPrimeFaces.getDataTable(table);
+		Assert.assertEquals(asList("Name", "Length"), dataTable.getColumns());
+		Assert.assertEquals(10, dataTable.getRows().size());
+		Assert.assertEquals(0, dataTable.getPage());
+		Assert.assertEquals(3, dataTable.getPageCount());
+		Assert.assertEquals(25, dataTable.getRowCount());
+		Assert.assertEquals("Row 1", dataTable.getRows().get(0).getKey());
+		Assert.assertEquals(asList("Row 1", "5"), dataTable.getRows().get(0).getCells());
+		Assert.assertFalse(dataTable.getRows().get(0).isSelected());
+
+		DataTable lastPage = ArquillianPrimeFaces.showDataTablePage(table, 2);
+		Assert.assertEquals(2, lastPage.getPage());
+		Assert.assertTrue(lastPage.isLastPage());
+		Assert.assertEquals(5, lastPage.getRows().size());
+		Assert.assertEquals("Row 25", lastPage.getRows().get(4).getCell(0));
+	}
+
+	@Test
+	public void testDataTableRows() {
+		open("dataTable.xhtml");
+		ArquillianPrimeFaces.showDataTablePage(table, 1);
+		List<String> names = ArquillianPrimeFaces.streamDataTableRows(table).map(row -> row.getCell(0)).collect(toList());
+		Assert.assertEquals(25, names.size());
+		Assert.assertEquals("Row 1", names.get(0));
+		Assert.assertEquals("Row 25", names.get(24));
+		Assert.assertEquals(2, ArquillianPrimeFaces.getDataTable(table).getPage());
+	}
+
+	@Test
+	public void testLiveScrollDataTableRows() {
+		open("dataTable.xhtml");
+		List<List<DataTable.Row>> batches = ArquillianPrimeFaces.streamScrolledDataTableRows(liveScrollTable, 7).collect(toList());
+		Assert.assertEquals(asList(7, 7, 7, 4), batches.stream().map(List::size).collect(toList()));
+		Assert.assertEquals("Row 1", batches.get(0).get(0).getCell(0));
+		Assert.assertEquals("Row 25", batches.get(3).get(3).getCell(0));
+		Assert.assertEquals(24, batches.get(3).get(3).getIndex());
+	}
+
+	@Test
+	public void testVirtualScrollDataTableRows() {
+		open("dataTable.xhtml");
+		List<String> names = ArquillianPrimeFaces.streamScrolledDataTableRows(virtualScrollTable, 10)
+			.flatMap(List::stream).map(row -> row.getCell(0)).collect(toList());
+		Assert.assertEquals(25, names.size());
+		Assert.assertEquals("Row 1", names.get(0));
+		Assert.assertEquals("Row 25", names.get(24));
+	}
+
+	@Test
+	public void testVirtualScrollDataTableRowsWithScrollLimitAboveRowCount() {
+		open("dataTable.xhtml");
+		List<String> names = ArquillianPrimeFaces.streamScrolledDataTableRows(overcountedScrollTable, 10)
+			.flatMap(List::stream).map(row -> row.getCell(0)).collect(toList());
+		Assert.assertEquals(25, names.size());
+		Assert.assertEquals("Row 25", names.get(24));
+	}
+
+	@Test
+	public void testViewStateSize() {
+		openStateless();
+		Assert.assertEquals("stateless".length(), ArquillianPrimeFaces.getViewStateSize(form));
+
+		openStateful();
+		ArquillianPrimeFaces.assertViewStateSmallerThan(form, 1024);
+		ArquillianPrimeFaces.clickCommandButton(commandButton);
+		ArquillianPrimeFaces.assertViewStateSmallerThan(form, 1024);
+	}
+
+	@Test
+	public void testAjaxRequests() {
+		openStateful();
+		ArquillianPrimeFaces.clickCommandButton(commandButton);
+		List<AjaxRequest> requests = ArquillianPrimeFaces.getAjaxRequests();
+		Assert.assertEquals(1, requests.size());
+		Assert.assertEquals(asList("form"), requests.get(0).getUpdatedIds());
+		Assert.assertTrue(requests.get(0).getRequestBytes() > 0);
+		Assert.assertTrue(requests.get(0).getResponseBytes() > 0);
+		ArquillianPrimeFaces.assertAjaxCompletesWithin(Duration.ofSeconds(5));
+		ArquillianPrimeFaces.assertUpdatesAtMost(1);
+	}
+
+	@Test
+	public void testParallelBrowsers() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try (BrowserPool pool = new BrowserPool(2, Duration.ofSeconds(10))) {
+			List<Future<?>> tasks = new ArrayList<>();
+
+			for (int i = 0; i < 4; i++) {
+				SeededEntropy worker = entropy.split();
+				tasks.add(executor.submit(() -> worker.run(() -> pool.run(pooledBrowser -> {
+					pooledBrowser.get(baseURL + "stateful.xhtml");
+					WebElement pooledInputText = pooledBrowser.findElement(By.id("form:inputText"));
+					ArquillianPrimeFaces.setInputTextValue(pooledInputText, Entropy.getRandomString());
+					ArquillianPrimeFaces.clickCommandButton(pooledBrowser.findElement(By.id("form:commandButton")));
+					ArquillianPrimeFaces.assertValid(pooledBrowser.findElement(By.id("form:inputText")));
+					ArquillianPrimeFaces.assertInvalid(pooledBrowser.findElement(By.id("form:inputNumber")));
+				}))));
+			}
+
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
 
 	// Testers --------------------------------------------------------------------------------------------------------
 
@@ -292,6 +591,50 @@ public class ArquillianPrimeFacesIT {
 		assertSubmitValid(inputValues);
 	}
 
+	protected void fillInputValuesInBatchAndSubmit(WebElement command, Consumer<WebElement> action) {
+		Map<String, Serializable> inputValues = fillInputValuesInBatch();
+		inputValues.put("command", command.getAttribute("id"));
+		submit(command, action);
+		assertSubmitValid(inputValues);
+	}
+
+	protected Map<String, Serializable> fillInputValuesInBatch() {
+		Map<String, Serializable> inputValues = new LinkedHashMap<>();
+
+		String inputTextValue = Entropy.getRandomString();
+		inputValues.put("inputText", inputTextValue);
+		Number inputNumberValue = Entropy.getRandomNumberBetween(1, 100);
+		inputValues.put("inputNumber", inputNumberValue);
+		Number spinnerValue = Entropy.getRandomNumberBetween(1, 100);
+		inputValues.put("spinner", spinnerValue);
+		Number sliderValue = Entropy.getRandomNumberBetween(1, 100);
+		inputValues.put("slider", sliderValue);
+		String autoCompleteValue = Entropy.getRandomEnumValue(Item.class).getLabel();
+		inputValues.put("autoComplete", autoCompleteValue);
+		Item selectOneMenuValue = Entropy.getRandomEnumValue(Item.class);
+		inputValues.put("selectOneMenu", selectOneMenuValue);
+		Item selectOneRadioValue = Entropy.getRandomEnumValue(Item.class);
+		inputValues.put("selectOneRadio", selectOneRadioValue);
+		Item selectOneButtonValue = Entropy.getRandomEnumValue(Item.class);
+		inputValues.put("selectOneButton", selectOneButtonValue);
+		boolean selectBooleanCheckboxChecked = true;
+		inputValues.put("selectBooleanCheckbox", selectBooleanCheckboxChecked);
+
+		ArquillianPrimeFaces.fill(form)
+			.inputText(inputText, inputTextValue)
+			.inputNumber(inputNumber, inputNumberValue)
+			.spinner(spinner, spinnerValue)
+			.slider(slider, sliderValue)
+			.autoComplete(autoComplete, "query", autoCompleteValue)
+			.selectOneMenu(selectOneMenu, selectOneMenuValue)
+			.selectOneRadio(selectOneRadio, selectOneRadioValue)
+			.selectOneButton(selectOneButton, selectOneButtonValue)
+			.selectBooleanCheckbox(selectBooleanCheckbox, selectBooleanCheckboxChecked)
+			.apply();
+
+		return inputValues;
+	}
+
 	protected Map<String, Serializable> fillInputValues() {
 		Map<String, Serializable> inputValues = new LinkedHashMap<>();
 
@@ -366,6 +709,18 @@ public class ArquillianPrimeFacesIT {
 		// Cannot assert checkbox invalid as required=true has no effect there.
 	}
 
+	protected void assertSubmitInvalid(Map<String, Boolean> validityMap) {
+		ArquillianPrimeFaces.assertInvalid(validityMap, inputText);
+		ArquillianPrimeFaces.assertInvalid(validityMap, inputNumber);
+		ArquillianPrimeFaces.assertInvalid(validityMap, spinner);
+		ArquillianPrimeFaces.assertInvalid(validityMap, slider);
+		ArquillianPrimeFaces.assertInvalid(validityMap, autoComplete);
+		ArquillianPrimeFaces.assertInvalid(validityMap, selectOneMenu);
+		ArquillianPrimeFaces.assertInvalid(validityMap, selectOneRadio);
+		ArquillianPrimeFaces.assertInvalid(validityMap, selectOneButton);
+		// Cannot assert checkbox invalid as required=true has no effect there.
+	}
+
 	protected void assertPresence() {
 		ArquillianPrimeFaces.assertPresent(form);
 		ArquillianPrimeFaces.assertPresent(inputText);
@@ -18,6 +18,9 @@ import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
@@ -48,6 +51,8 @@ public class ArquillianPrimeFacesITBean {
 		}
 	}
 
+	private static final String DEPLOYMENT_ID = UUID.randomUUID().toString(); // Changes on every (re)deployment.
+
 	private String inputText;
 	private Integer inputNumber;
 	private Integer spinner;
@@ -57,13 +62,18 @@ public class ArquillianPrimeFacesITBean {
 	private String selectOneRadio;
 	private String selectOneButton;
 	private boolean selectBooleanCheckbox;
+	private String keyupInput;
+	private String blurInput;
 	private Map<String, Item> selectItems;
+	private List<String> rows;
+	private String selectedRow;
 
 	@PostConstruct
 	public void init() {
 		selectItems = new LinkedHashMap<>();
 		selectItems.put("", null);
 		Arrays.stream(Item.values()).forEach(item -> selectItems.put(item.getLabel(), item));
+		rows = IntStream.rangeClosed(1, 25).mapToObj(i -> "Row " + i).collect(Collectors.toList());
 	}
 
 	public List<String> completeMethod(String query) {
@@ -92,6 +102,10 @@ public class ArquillianPrimeFacesITBean {
 		return getViewIdWithRedirect();
 	}
 
+	public void fail() {
+		throw new IllegalStateException("Failed on purpose");
+	}
+
 	private void addGlobalMessage() {
 		FacesContext context = FacesContext.getCurrentInstance();
 		Map<String, Serializable> results = new LinkedHashMap<>();
@@ -185,6 +199,22 @@ public class ArquillianPrimeFacesITBean {
 		return selectItems;
 	}
 
+	public String getDeploymentId() {
+		return DEPLOYMENT_ID;
+	}
+
+	public List<String> getRows() {
+		return rows;
+	}
+
+	public String getSelectedRow() {
+		return selectedRow;
+	}
+
+	public void setSelectedRow(String selectedRow) {
+		this.selectedRow = selectedRow;
+	}
+
 	public boolean isSelectBooleanCheckbox() {
 		return selectBooleanCheckbox;
 	}
@@ -193,5 +223,21 @@ public class ArquillianPrimeFacesITBean {
 		this.selectBooleanCheckbox = selectBooleanCheckbox;
 	}
 
+	public String getKeyupInput() {
+		return keyupInput;
+	}
+
+	public void setKeyupInput(String keyupInput) {
+		this.keyupInput = keyupInput;
+	}
+
+	public String getBlurInput() {
+		return blurInput;
+	}
+
+	public void setBlurInput(String blurInput) {
+		this.blurInput = blurInput;
+	}
+
 
 }
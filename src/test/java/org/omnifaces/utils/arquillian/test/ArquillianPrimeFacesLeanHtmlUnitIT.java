@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 OmniFaces
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.omnifaces.utils.arquillian.test;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jboss.arquillian.container.test.api.Deployment;
+import org.jboss.arquillian.drone.api.annotation.Drone;
+import org.jboss.arquillian.graphene.proxy.GrapheneProxyInstance;
+import org.jboss.arquillian.junit.Arquillian;
+import org.jboss.arquillian.test.api.ArquillianResource;
+import org.jboss.shrinkwrap.api.spec.WebArchive;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.omnifaces.utils.arquillian.ArquillianPrimeFaces;
+import org.omnifaces.utils.arquillian.BrowserPool;
+import org.omnifaces.utils.arquillian.Entropy;
+import org.omnifaces.utils.arquillian.LeanHtmlUnitDriver;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Runs with <code>leanhtmlunit</code> as Drone browser, see the <code>leanhtmlunit</code> execution of the failsafe
+ * plugin, and drives lean browsers in parallel threads, which share the static JSF resources and compiled scripts.
+ */
+@RunWith(Arquillian.class)
+public class ArquillianPrimeFacesLeanHtmlUnitIT {
+
+	@Deployment(testable=false)
+	public static WebArchive createDeployment() {
+		return ArquillianPrimeFacesIT.createDeployment();
+	}
+
+	@Drone
+	private WebDriver browser;
+
+	@ArquillianResource
+	private URL baseURL;
+
+	@Test
+	public void testDroneBrowser() {
+		Assert.assertTrue(((GrapheneProxyInstance) browser).unwrap() instanceof LeanHtmlUnitDriver);
+
+		browser.get(baseURL + "ajax.xhtml");
+		String value = Entropy.getRandomString();
+		ArquillianPrimeFaces.fill(browser.findElement(By.id("ajaxForm"))).inputText(browser.findElement(By.id("ajaxForm:keyupInput")), value).apply();
+		Assert.assertEquals(value, browser.findElement(By.id("ajaxForm:keyupOutput")).getText());
+	}
+
+	@Test
+	public void testParallelLeanBrowsers() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+
+		try (BrowserPool pool = new BrowserPool(4, Duration.ofSeconds(10), LeanHtmlUnitDriver::new)) {
+			List<Future<?>> tasks = new ArrayList<>();
+
+			for (int i = 0; i < 16; i++) {
+				String value = Entropy.getRandomString();
+				tasks.add(executor.submit(() -> pool.run(pooledBrowser -> {
+					pooledBrowser.get(baseURL + "ajax.xhtml");
+					WebElement keyupInput = pooledBrowser.findElement(By.id("ajaxForm:keyupInput"));
+					ArquillianPrimeFaces.fill(pooledBrowser.findElement(By.id("ajaxForm"))).inputText(keyupInput, value).apply();
+					Assert.assertEquals(value, pooledBrowser.findElement(By.id("ajaxForm:keyupOutput")).getText());
+
+					pooledBrowser.get(baseURL + "stateful.xhtml");
+					ArquillianPrimeFaces.setInputTextValue(pooledBrowser.findElement(By.id("form:inputText")), value);
+					ArquillianPrimeFaces.clickCommandButton(pooledBrowser.findElement(By.id("form:commandButton")));
+					ArquillianPrimeFaces.assertValid(pooledBrowser.findElement(By.id("form:inputText")));
+					ArquillianPrimeFaces.assertInvalid(pooledBrowser.findElement(By.id("form:inputNumber")));
+				})));
+			}
+
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+}